@@ -14,6 +14,8 @@
  */
 package com.furcino.sudokulib.models;
 
+import java.util.Arrays;
+
 import org.apache.log4j.Logger;
 
 /**
@@ -38,11 +40,32 @@ public class Sudoku {
 	/** Grid holding solution values  rows (0-8) columns (0-8) 0 - empty cell, else equals value. */
 	protected int grid[][] = new int[N][N];
 
-	/** Possible values for cell (row, column) where (row, column, value-1) == 1 means values is possible and (row, colun, value-1) == 0 means value is not possible. */
-	protected int possibleValues[][][] = new int[N][N][N];
+	/** Possible values for cell (row*N + column) as a bit mask where bit (value-1) is set when value is possible and cleared when value is not possible. */
+	protected int candidateMasks[] = new int[N*N];
+
+	/** Unsolved cells (row*N + column) with exactly two possible values, kept up to date on every change. */
+	protected int bivalueCells[] = new int[N*N];
+
+	/** Position of a cell (row*N + column) in bivalueCells or -1 if the cell is not bivalue. */
+	protected int bivaluePositions[] = new int[N*N];
+
+	/** Number of bivalue cells. */
+	protected int bivalueCount = 0;
+
+	/** Places of a value in a unit (index unit*N + value-1) as a bit mask of positions (0-8) in rows (0-8), columns (9-17) and grids (18-26). */
+	protected int unitValuePlaces[] = new int[3*N*N];
+
+	/** Units (0-26) where a value (index value-1) has exactly two places as a bit mask, each of them being a strong link. */
+	protected int strongLinkUnits[] = new int[N];
+
+	/** Change counter of a unit (0-26), increased whenever a cell of the unit gets solved or loses a possible value. */
+	protected int unitVersions[] = new int[3*N];
+
+	/** Change counter of a value (index value-1), increased whenever the value gets solved or loses a place. */
+	protected int valueVersions[] = new int[N];
 
 	/** Possible user specified values for cell (row, column) where (row, column, value-1) == 1 means values is possible and (row, colun, value-1) == 0 means value is not possible. */
-	protected int possibleUserValues[][][] = new int[N][N][N];
+	protected int possibleUserValues[][][];
 	
 	/** Solved values in grids (0-2, 0-2) where (gridRow, gridColumn, value-1) == 1 means value is solved and (gridRow, gridColumn, value-1) == 0 means value is not solved. */
 	protected int solvedValuesInGrid[][][] = new int[GRIDS][GRIDS][N];
@@ -61,6 +84,9 @@ public class Sudoku {
 
 	/** Solution to sudoku. */
 	protected Sudoku solution;
+
+	/** Difficulty rating of the human solve (0 if not rated). */
+	protected double rating = 0;
 	
 	/**
 	 * Empty sudoku constructor.
@@ -176,12 +202,72 @@ public class Sudoku {
 	 */
 	private void initPossibleValues() {
 		// set all values to possible
-		for (int i = 0; i < N; i++) {
-			for (int j = 0; j < N; j++) {
-				for (int k = 0; k < N; k++) {
-					this.possibleValues[i][j][k] = 1;
-				}
-			}
+		Arrays.fill(this.candidateMasks, (1 << N) - 1);
+		Arrays.fill(this.bivaluePositions, -1);
+		Arrays.fill(this.unitValuePlaces, (1 << N) - 1);
+	}
+
+	/**
+	 * Remove value (k = value-1) from possible values of a cell and keep
+	 * bivalue cells and strong links in sync.
+	 *
+	 * @param row cell row
+	 * @param col cell column
+	 * @param k value representation (value-1)
+	 */
+	private void removePossibleValue(int row, int col, int k) {
+		int cell = row*N + col;
+		if ((this.candidateMasks[cell] & (1 << k)) == 0) {
+			return;
+		}
+		this.candidateMasks[cell] &= ~(1 << k);
+		updateBivalueCell(row, col);
+		removeValuePlace(row, k, col);
+		removeValuePlace(N + col, k, row);
+		removeValuePlace(2*N + row/3*3 + col/3, k, row%3*3 + col%3);
+	}
+
+	/**
+	 * Remove a place of value (k = value-1) in a unit and update strong links.
+	 *
+	 * @param unit unit (0-26)
+	 * @param k value representation (value-1)
+	 * @param position position in unit (0-8)
+	 */
+	private void removeValuePlace(int unit, int k, int position) {
+		int places = this.unitValuePlaces[unit*N + k] & ~(1 << position);
+		this.unitValuePlaces[unit*N + k] = places;
+		this.unitVersions[unit]++;
+		this.valueVersions[k]++;
+		if (Integer.bitCount(places) == 2) {
+			this.strongLinkUnits[k] |= 1 << unit;
+		} else {
+			this.strongLinkUnits[k] &= ~(1 << unit);
+		}
+	}
+
+	/**
+	 * Add or remove a cell from bivalue cells based on its current state.
+	 *
+	 * @param row cell row
+	 * @param col cell column
+	 */
+	private void updateBivalueCell(int row, int col) {
+		int cell = row*N + col;
+		int position = this.bivaluePositions[cell];
+		boolean bivalue = this.grid[row][col] == 0 && Integer.bitCount(this.candidateMasks[cell]) == 2;
+
+		if (bivalue && position < 0) {
+			this.bivalueCells[this.bivalueCount] = cell;
+			this.bivaluePositions[cell] = this.bivalueCount;
+			this.bivalueCount++;
+		} else if (!bivalue && position >= 0) {
+			// move last bivalue cell to the freed position
+			this.bivalueCount--;
+			int last = this.bivalueCells[this.bivalueCount];
+			this.bivalueCells[position] = last;
+			this.bivaluePositions[last] = position;
+			this.bivaluePositions[cell] = -1;
 		}
 	}
 	
@@ -270,21 +356,21 @@ public class Sudoku {
 		// resolve cell
 		for (int i=1; i <= N; i++) {
 			if (i != value) {
-				this.possibleValues[row][col][i-1] = 0;
+				removePossibleValue(row, col, i-1);
 			}
 		}
 		
 		// resolve row
 		for (int i=0; i < N; i++) {
 			if (i != col) {
-				this.possibleValues[row][i][k] = 0;
+				removePossibleValue(row, i, k);
 			}
 		}
 		
 		// resolve col
 		for (int i=0; i < N; i++) {
 			if (i != row) {
-				this.possibleValues[i][col][k] = 0;
+				removePossibleValue(i, col, k);
 			}
 		}
 		
@@ -292,7 +378,7 @@ public class Sudoku {
 		for (int i = row/3*3; i < row/3*3+3; i++) {
 			for (int j= col/3*3; j < col/3*3+3; j++) {
 				if (i != row && j != col) {
-					this.possibleValues[i][j][k] = 0;
+					removePossibleValue(i, j, k);
 				}
 			}
 		}
@@ -335,14 +421,28 @@ public class Sudoku {
 			}
 		}
 
+		if (value != oldValue) {
+			this.unitVersions[row]++;
+			this.unitVersions[N + col]++;
+			this.unitVersions[2*N + row/3*3 + col/3]++;
+			if (value != 0) {
+				this.valueVersions[value-1]++;
+			}
+			if (oldValue != 0) {
+				this.valueVersions[oldValue-1]++;
+			}
+		}
+
 		if (value != 0) {
 			resolvePossibleValuesBasic(row, col, value);
+			updateBivalueCell(row, col);
 			setGridValueAsSolved(row/3, col/3, value);
 			setRowValueAsSolved(row, value);
 			setColValueAsSolved(col, value);
 		} else if (oldValue != 0){
 		    // TODO: there could be a way to resolve possibilities when removing a value
             // (now we create new sudokus when removing values)
+			updateBivalueCell(row, col);
         }
 	}
 
@@ -488,7 +588,7 @@ public class Sudoku {
 			return true;
 		}
 		
-		return this.possibleValues[row][col][value-1] == 1;
+		return (this.candidateMasks[row*N + col] & (1 << (value-1))) != 0;
 	}
 	
 	/**
@@ -502,7 +602,109 @@ public class Sudoku {
 		checkInputValue(value);
 		checkInputCol(col);
 		checkInputRow(row);
-		this.possibleValues[row][col][value-1] = 0;
+		removePossibleValue(row, col, value-1);
+	}
+
+	/**
+	 * Get possible values of a cell as a bit mask where bit (value-1)
+	 * is set when value is possible.
+	 *
+	 * @param row cell row
+	 * @param col cell column
+	 * @return candidate mask
+	 */
+	public int getCandidateMask(int row, int col) {
+		checkInputCol(col);
+		checkInputRow(row);
+		return this.candidateMasks[row*N + col];
+	}
+
+	/**
+	 * Get number of possible values of a cell.
+	 *
+	 * @param row cell row
+	 * @param col cell column
+	 * @return number of possible values
+	 */
+	public int getCandidateCount(int row, int col) {
+		return Integer.bitCount(getCandidateMask(row, col));
+	}
+
+	/**
+	 * Get places of a value in a unit as a bit mask of positions (0-8), where
+	 * units are rows (0-8), columns (9-17) and grids (18-26) and positions in
+	 * grids go left to right and top to bottom.
+	 *
+	 * @param unit unit (0-26)
+	 * @param value number to check
+	 * @return places as bit mask
+	 */
+	public int getValuePlaces(int unit, int value) {
+		checkInputValue(value);
+		if (unit < 0 || unit >= 3*N) {
+			throw new IllegalArgumentException("Incorrect unit (" + unit + ")");
+		}
+		return this.unitValuePlaces[unit*N + value-1];
+	}
+
+	/**
+	 * Get change counter of a unit (0-26), which increases whenever a cell of
+	 * the unit gets solved or loses a possible value.
+	 *
+	 * @param unit unit (0-26)
+	 * @return unit version
+	 */
+	public int getUnitVersion(int unit) {
+		if (unit < 0 || unit >= 3*N) {
+			throw new IllegalArgumentException("Incorrect unit (" + unit + ")");
+		}
+		return this.unitVersions[unit];
+	}
+
+	/**
+	 * Get change counter of a value, which increases whenever the value gets
+	 * solved or loses a place.
+	 *
+	 * @param value number to check
+	 * @return value version
+	 */
+	public int getValueVersion(int value) {
+		checkInputValue(value);
+		return this.valueVersions[value-1];
+	}
+
+	/**
+	 * Get units (0-26) where a value has exactly two places (strong links) as a bit mask.
+	 *
+	 * @param value number to check
+	 * @return units as bit mask
+	 */
+	public int getStrongLinkUnits(int value) {
+		checkInputValue(value);
+		return this.strongLinkUnits[value-1];
+	}
+
+	/**
+	 * Get number of unsolved cells with exactly two possible values.
+	 *
+	 * @return number of bivalue cells
+	 */
+	public int getBivalueCellCount() {
+		return this.bivalueCount;
+	}
+
+	/**
+	 * Get bivalue cell (row*N + column) at index (0 - getBivalueCellCount()-1).
+	 * The order changes as cells are added and removed.
+	 *
+	 * @param index position in bivalue cells
+	 * @return cell as row*N + column
+	 */
+	public int getBivalueCell(int index) {
+		if (index < 0 || index >= this.bivalueCount) {
+			throw new IllegalArgumentException("Incorrect bivalue index (" + index + ")");
+		}
+		return this.bivalueCells[index];
 	}
 	
 	/**
@@ -522,7 +724,7 @@ public class Sudoku {
 			return true;
 		}
 		
-		return this.possibleUserValues[row][col][value-1] == 1;
+		return this.possibleUserValues != null && this.possibleUserValues[row][col][value-1] == 1;
 	}
 	
 	/**
@@ -536,6 +738,10 @@ public class Sudoku {
 		checkInputValue(value);
 		checkInputCol(col);
 		checkInputRow(row);
+		if (this.possibleUserValues == null) {
+			// user values are rare, so they are created on first use
+			this.possibleUserValues = new int[N][N][N];
+		}
 		this.possibleUserValues[row][col][value-1] = 1;
 	}
 	
@@ -550,7 +756,9 @@ public class Sudoku {
 		checkInputValue(value);
 		checkInputCol(col);
 		checkInputRow(row);
-		this.possibleUserValues[row][col][value-1] = 0;
+		if (this.possibleUserValues != null) {
+			this.possibleUserValues[row][col][value-1] = 0;
+		}
 	}
 	
 	/**
@@ -588,6 +796,41 @@ public class Sudoku {
 		this.solution = solution;
 	}
 	
+	/**
+	 * Create a transformed copy of the puzzle and its solution. The rating and
+	 * id are kept, since the transformed puzzle is equivalent, so the id no
+	 * longer identifies one grid; set a new id on the copy to tell them apart.
+	 *
+	 * @param transform the transform
+	 * @return transformed sudoku
+	 */
+	public Sudoku transform(SudokuTransform transform) {
+		Sudoku result = new Sudoku(transform.apply(this.grid), this.id);
+		if (this.solution != null) {
+			result.setSolution(new Sudoku(transform.apply(this.solution.grid), this.solution.id));
+		}
+		result.setRating(this.rating);
+		return result;
+	}
+
+	/**
+	 * Get difficulty rating.
+	 *
+	 * @return rating (0 if not rated)
+	 */
+	public double getRating() {
+		return rating;
+	}
+
+	/**
+	 * Set difficulty rating.
+	 *
+	 * @param rating difficulty rating
+	 */
+	public void setRating(double rating) {
+		this.rating = rating;
+	}
+	
 	/**
 	 * Helper function for debugging, which prints possible places
 	 * for a given value as 1 and impossible as 0.
@@ -608,7 +851,7 @@ public class Sudoku {
 				if (col > 0 && col % 3 == 0) {
 					output.append("|");
 				}
-				output.append(this.possibleValues[row][col][value-1]);
+				output.append((this.candidateMasks[row*N + col] >> (value-1)) & 1);
 			}
 			output.append("\n");
 		}
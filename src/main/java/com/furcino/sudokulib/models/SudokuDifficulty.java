@@ -31,7 +31,10 @@ public enum SudokuDifficulty {
     HARD(3),
     
     /** The very hard. */
-    VERY_HARD(4);
+    VERY_HARD(4),
+    
+    /** The extreme. */
+    EXTREME(5);
 
     /** The num val. */
     private int numVal;
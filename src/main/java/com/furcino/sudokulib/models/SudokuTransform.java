@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models;
+
+import java.util.Random;
+
+import com.furcino.sudokulib.util.CommonUtil;
+
+/**
+ * Validity preserving transform of a sudoku: digit relabeling, row and
+ * column swaps within bands and stacks, band and stack swaps, transposition
+ * and rotation. Puzzles related by a transform are equivalent and have the
+ * same difficulty.
+ *
+ * Operations are applied in call order. A cell (row, col) of the result
+ * holds the relabeled value of the source cell (rows[row], cols[col]), read
+ * transposed when the transform is transposed.
+ *
+ * @author Martin Furek
+ */
+public class SudokuTransform {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** Source row of each result row. */
+    private int[] rows = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+
+    /** Source column of each result column. */
+    private int[] cols = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+
+    /** New value of each value (index value-1). */
+    private int[] digits = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+    /** Whether the source is read transposed. */
+    private boolean transposed = false;
+
+    /**
+     * Creates a random transform.
+     *
+     * @param random the random source
+     * @return the transform
+     */
+    public static SudokuTransform random(Random random) {
+        SudokuTransform transform = new SudokuTransform();
+        CommonUtil.shuffleArray(transform.digits, random);
+        transform.rows = randomLines(random);
+        transform.cols = randomLines(random);
+        transform.transposed = random.nextBoolean();
+        return transform;
+    }
+
+    /**
+     * Random order of lines that keeps lines of a band (stack) together.
+     *
+     * @param random the random source
+     * @return the lines
+     */
+    private static int[] randomLines(Random random) {
+        int[] bands = {0, 1, 2};
+        CommonUtil.shuffleArray(bands, random);
+        int[] lines = new int[N];
+        for (int band = 0; band < 3; band++) {
+            int[] inner = {0, 1, 2};
+            CommonUtil.shuffleArray(inner, random);
+            for (int i = 0; i < 3; i++) {
+                lines[band * 3 + i] = bands[band] * 3 + inner[i];
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Relabel values.
+     *
+     * @param mapping new value of each value (index value-1), a permutation of 1-9
+     * @return this transform
+     */
+    public SudokuTransform relabel(int[] mapping) {
+        int used = 0;
+        for (int value : mapping) {
+            if (value < 1 || value > N) {
+                throw new IllegalArgumentException("Incorrect value (" + value + ")");
+            }
+            used |= 1 << (value - 1);
+        }
+        if (mapping.length != N || used != (1 << N) - 1) {
+            throw new IllegalArgumentException("Mapping is not a permutation of values");
+        }
+        for (int k = 0; k < N; k++) {
+            digits[k] = mapping[digits[k] - 1];
+        }
+        return this;
+    }
+
+    /**
+     * Swap two rows of the same band.
+     *
+     * @param one the first row
+     * @param two the second row
+     * @return this transform
+     */
+    public SudokuTransform swapRows(int one, int two) {
+        checkSameBand(one, two);
+        swap(rows, one, two);
+        return this;
+    }
+
+    /**
+     * Swap two columns of the same stack.
+     *
+     * @param one the first column
+     * @param two the second column
+     * @return this transform
+     */
+    public SudokuTransform swapCols(int one, int two) {
+        checkSameBand(one, two);
+        swap(cols, one, two);
+        return this;
+    }
+
+    /**
+     * Swap two bands (rows 0-2, 3-5, 6-8).
+     *
+     * @param one the first band (0-2)
+     * @param two the second band (0-2)
+     * @return this transform
+     */
+    public SudokuTransform swapBands(int one, int two) {
+        checkBand(one);
+        checkBand(two);
+        for (int i = 0; i < 3; i++) {
+            swap(rows, one * 3 + i, two * 3 + i);
+        }
+        return this;
+    }
+
+    /**
+     * Swap two stacks (columns 0-2, 3-5, 6-8).
+     *
+     * @param one the first stack (0-2)
+     * @param two the second stack (0-2)
+     * @return this transform
+     */
+    public SudokuTransform swapStacks(int one, int two) {
+        checkBand(one);
+        checkBand(two);
+        for (int i = 0; i < 3; i++) {
+            swap(cols, one * 3 + i, two * 3 + i);
+        }
+        return this;
+    }
+
+    /**
+     * Transpose (rows become columns).
+     *
+     * @return this transform
+     */
+    public SudokuTransform transpose() {
+        int[] swapped = rows;
+        rows = cols;
+        cols = swapped;
+        transposed = !transposed;
+        return this;
+    }
+
+    /**
+     * Rotate clockwise by 90 degrees.
+     *
+     * @return this transform
+     */
+    public SudokuTransform rotate() {
+        transpose();
+        int[] reversed = new int[N];
+        for (int col = 0; col < N; col++) {
+            reversed[col] = cols[N - 1 - col];
+        }
+        cols = reversed;
+        return this;
+    }
+
+    /**
+     * Apply the transform to a grid of values (0 for empty cells).
+     *
+     * @param grid the grid
+     * @return the transformed grid
+     */
+    public int[][] apply(int[][] grid) {
+        int[][] result = new int[N][N];
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                int value = transposed ? grid[cols[col]][rows[row]] : grid[rows[row]][cols[col]];
+                result[row][col] = value == 0 ? 0 : digits[value - 1];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Swap two entries of an array.
+     *
+     * @param array the array
+     * @param one the first index
+     * @param two the second index
+     */
+    private static void swap(int[] array, int one, int two) {
+        int value = array[one];
+        array[one] = array[two];
+        array[two] = value;
+    }
+
+    /**
+     * Check that two lines are in the same band (stack).
+     *
+     * @param one the first line
+     * @param two the second line
+     */
+    private static void checkSameBand(int one, int two) {
+        if (one < 0 || one >= N || two < 0 || two >= N || one / 3 != two / 3) {
+            throw new IllegalArgumentException("Lines " + one + " and " + two + " are not in the same band");
+        }
+    }
+
+    /**
+     * Check band (stack) index.
+     *
+     * @param band the band
+     */
+    private static void checkBand(int band) {
+        if (band < 0 || band >= 3) {
+            throw new IllegalArgumentException("Incorrect band (" + band + ")");
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.furcino.sudokulib.models.Sudoku;
+
+/**
+ * Generates random solution grids by randomized backtracking. Used values of
+ * rows, columns and grids are kept as bit masks, the cell with the fewest
+ * possible values is filled first and values are tried in random order, so
+ * dead ends are found right away and a grid takes microseconds. Rare runs
+ * that backtrack a lot are restarted, which cuts the tail latency.
+ *
+ * @author Martin Furek
+ */
+public class FullGridGenerator {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** All values as bit mask. */
+    private static final int ALL = (1 << N) - 1;
+
+    /** Grid index of a cell. */
+    private static final int[] GRID_OF_CELL = new int[N * N];
+
+    static {
+        for (int cell = 0; cell < N * N; cell++) {
+            GRID_OF_CELL[cell] = cell / N / 3 * 3 + cell % N / 3;
+        }
+    }
+
+    /** Cell values (0 for empty). */
+    private int[] cells = new int[N * N];
+
+    /** Used values of rows. */
+    private int[] rowMasks = new int[N];
+
+    /** Used values of columns. */
+    private int[] colMasks = new int[N];
+
+    /** Used values of grids. */
+    private int[] gridMasks = new int[N];
+
+    /** Maximum number of filled cells (including backtracked ones) before a restart. */
+    private static final int MAX_NODES = 200;
+
+    /** Number of filled cells of the current run. */
+    private int nodes;
+
+    /**
+     * Generate a random solution grid.
+     *
+     * @param random the random source
+     * @return the solved sudoku
+     */
+    public Sudoku generate(Random random) {
+        int[][] grid = new int[N][N];
+        int[] values = generateCells(random);
+        for (int cell = 0; cell < N * N; cell++) {
+            grid[cell / N][cell % N] = values[cell];
+        }
+        return new Sudoku(grid);
+    }
+
+    /**
+     * Generate a random solution grid as cell values (row*N + column).
+     *
+     * @param random the random source
+     * @return the cell values
+     */
+    public int[] generateCells(Random random) {
+        do {
+            Arrays.fill(cells, 0);
+            Arrays.fill(rowMasks, 0);
+            Arrays.fill(colMasks, 0);
+            Arrays.fill(gridMasks, 0);
+            nodes = 0;
+        } while (!fill(random));
+        return cells.clone();
+    }
+
+    /**
+     * Fill the most constrained empty cell and continue recursively.
+     *
+     * @param random the random source
+     * @return true, if all cells got filled, false on a dead end or when the run is too long
+     */
+    private boolean fill(Random random) {
+        int best = -1;
+        int bestMask = 0;
+        int bestCount = N + 1;
+        for (int cell = 0; cell < N * N; cell++) {
+            if (cells[cell] != 0) {
+                continue;
+            }
+            int mask = ALL & ~(rowMasks[cell / N] | colMasks[cell % N] | gridMasks[GRID_OF_CELL[cell]]);
+            int count = Integer.bitCount(mask);
+            if (count == 0) {
+                return false;
+            }
+            if (count < bestCount) {
+                best = cell;
+                bestMask = mask;
+                bestCount = count;
+                if (count == 1) {
+                    break;
+                }
+            }
+        }
+        if (best < 0) {
+            return true;
+        }
+
+        int row = best / N;
+        int col = best % N;
+        int grid = GRID_OF_CELL[best];
+        for (int rest = bestMask; rest != 0; bestCount--) {
+            // pick a random remaining value
+            int pick = random.nextInt(bestCount);
+            int bit = rest;
+            for (int i = 0; i < pick; i++) {
+                bit &= bit - 1;
+            }
+            bit &= -bit;
+            rest &= ~bit;
+
+            if (++nodes > MAX_NODES) {
+                return false;
+            }
+            cells[best] = Integer.numberOfTrailingZeros(bit) + 1;
+            rowMasks[row] |= bit;
+            colMasks[col] |= bit;
+            gridMasks[grid] |= bit;
+            if (fill(random)) {
+                return true;
+            }
+            rowMasks[row] &= ~bit;
+            colMasks[col] &= ~bit;
+            gridMasks[grid] &= ~bit;
+        }
+        cells[best] = 0;
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.util.List;
+
+import com.furcino.sudokulib.models.Sudoku;
+
+/**
+ * Puzzles of a generation run that may have stopped before all requested
+ * puzzles were finished, with the statistics of the run.
+ *
+ * @author Martin Furek
+ */
+public class GenerationResult {
+
+    /** The finished puzzles. */
+    private List<Sudoku> sudokus;
+
+    /** The number of requested puzzles. */
+    private int requested;
+
+    /** The statistics. */
+    private GenerationStats stats;
+
+    /** The run time in milliseconds. */
+    private long time;
+
+    /**
+     * Instantiates a new generation result.
+     *
+     * @param sudokus the finished puzzles
+     * @param requested the number of requested puzzles
+     * @param stats the statistics
+     * @param time the run time in milliseconds
+     */
+    public GenerationResult(List<Sudoku> sudokus, int requested, GenerationStats stats, long time) {
+        this.sudokus = sudokus;
+        this.requested = requested;
+        this.stats = stats;
+        this.time = time;
+    }
+
+    /**
+     * Gets the finished puzzles.
+     *
+     * @return the sudokus
+     */
+    public List<Sudoku> getSudokus() {
+        return sudokus;
+    }
+
+    /**
+     * Gets the number of requested puzzles.
+     *
+     * @return the requested
+     */
+    public int getRequested() {
+        return requested;
+    }
+
+    /**
+     * Checks if all requested puzzles were finished.
+     *
+     * @return true, if complete
+     */
+    public boolean isComplete() {
+        return sudokus.size() >= requested;
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return the stats
+     */
+    public GenerationStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the run time in milliseconds.
+     *
+     * @return the time
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "GenerationResult [puzzles=" + sudokus.size() + "/" + requested + ", time=" + time + "ms, " + stats
+                + "]";
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+/**
+ * Counters of the work done by generation: solution grids used, digs and
+ * redigs, and why dug puzzles were rejected.
+ *
+ * @author Martin Furek
+ */
+public class GenerationStats {
+
+    /** Solution grids used. */
+    private long grids = 0;
+
+    /** Digs, including redigs. */
+    private long digs = 0;
+
+    /** Redigs after backtracking. */
+    private long redigs = 0;
+
+    /** Dug puzzles outside the clue range. */
+    private long clueRejects = 0;
+
+    /** Dug puzzles rejected by the feature prefilter. */
+    private long featureRejects = 0;
+
+    /** Dug puzzles with more than one solution. */
+    private long uniquenessRejects = 0;
+
+    /** Dug puzzles graded at another difficulty. */
+    private long gradeRejects = 0;
+
+    /** Generated puzzles rejected as duplicates. */
+    private long duplicateRejects = 0;
+
+    /** Generated puzzles. */
+    private long puzzles = 0;
+
+    /**
+     * Count a solution grid.
+     */
+    void addGrid() {
+        grids++;
+    }
+
+    /**
+     * Count a dig.
+     *
+     * @param redig true, if the dig follows backtracking
+     */
+    void addDig(boolean redig) {
+        digs++;
+        if (redig) {
+            redigs++;
+        }
+    }
+
+    /**
+     * Count a puzzle outside the clue range.
+     */
+    void addClueReject() {
+        clueRejects++;
+    }
+
+    /**
+     * Count a puzzle rejected by the feature prefilter.
+     */
+    void addFeatureReject() {
+        featureRejects++;
+    }
+
+    /**
+     * Count a puzzle with more than one solution.
+     */
+    void addUniquenessReject() {
+        uniquenessRejects++;
+    }
+
+    /**
+     * Count a puzzle graded at another difficulty.
+     */
+    void addGradeReject() {
+        gradeRejects++;
+    }
+
+    /**
+     * Count a generated puzzle rejected as a duplicate.
+     */
+    void addDuplicateReject() {
+        duplicateRejects++;
+    }
+
+    /**
+     * Count a generated puzzle.
+     */
+    void addPuzzle() {
+        puzzles++;
+    }
+
+    /**
+     * Gets the number of solution grids used.
+     *
+     * @return the grids
+     */
+    public long getGrids() {
+        return grids;
+    }
+
+    /**
+     * Gets the number of digs, including redigs.
+     *
+     * @return the digs
+     */
+    public long getDigs() {
+        return digs;
+    }
+
+    /**
+     * Gets the number of redigs after backtracking.
+     *
+     * @return the redigs
+     */
+    public long getRedigs() {
+        return redigs;
+    }
+
+    /**
+     * Gets the number of dug puzzles outside the clue range.
+     *
+     * @return the clue rejects
+     */
+    public long getClueRejects() {
+        return clueRejects;
+    }
+
+    /**
+     * Gets the number of dug puzzles rejected by the feature prefilter.
+     *
+     * @return the feature rejects
+     */
+    public long getFeatureRejects() {
+        return featureRejects;
+    }
+
+    /**
+     * Gets the number of dug puzzles with more than one solution.
+     *
+     * @return the uniqueness rejects
+     */
+    public long getUniquenessRejects() {
+        return uniquenessRejects;
+    }
+
+    /**
+     * Gets the number of dug puzzles graded at another difficulty.
+     *
+     * @return the grade rejects
+     */
+    public long getGradeRejects() {
+        return gradeRejects;
+    }
+
+    /**
+     * Gets the number of generated puzzles rejected as duplicates.
+     *
+     * @return the duplicate rejects
+     */
+    public long getDuplicateRejects() {
+        return duplicateRejects;
+    }
+
+    /**
+     * Gets the number of generated puzzles.
+     *
+     * @return the puzzles
+     */
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "GenerationStats [puzzles=" + puzzles + ", grids=" + grids + ", digs=" + digs + ", redigs=" + redigs
+                + ", clueRejects=" + clueRejects + ", featureRejects=" + featureRejects + ", uniquenessRejects="
+                + uniquenessRejects + ", gradeRejects=" + gradeRejects + ", duplicateRejects=" + duplicateRejects + "]";
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.util.Arrays;
+
+import com.furcino.sudokulib.models.Sudoku;
+
+/**
+ * Set of puzzle fingerprints for rejecting duplicates while generating.
+ *
+ * The fingerprint is a 64-bit hash of the canonical form of the clues: the
+ * lexicographically smallest grid over all symmetries of {@link
+ * com.furcino.sudokulib.models.SudokuTransform} (transposition, band and stack
+ * orders, row and column orders within them), with digits relabeled in order
+ * of first appearance. Variants of a puzzle have the same canonical form and
+ * puzzles that are not variants of each other have different ones, so two
+ * puzzles share a fingerprint only by a 64-bit hash collision.
+ *
+ * Fingerprints are kept either in an open addressing set of longs, which is
+ * at most half full (16-32 bytes a puzzle), or in a Bloom filter of fixed
+ * size for very large runs, which also rejects a configurable share of new
+ * puzzles.
+ *
+ * Thread safe.
+ *
+ * @author Martin Furek
+ */
+public class PuzzleDeduplicator {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** All orders of three items. */
+    private static final int[][] ORDERS = {
+            {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+
+    /** All fingerprints (0 for an empty slot), or null in Bloom filter mode. */
+    private long[] table;
+
+    /** Bloom filter bits, or null in exact mode. */
+    private long[] bits;
+
+    /** Number of Bloom filter bits. */
+    private long bitCount;
+
+    /** Number of Bloom filter hashes. */
+    private int hashCount;
+
+    /** Number of added puzzles. */
+    private long size = 0;
+
+    /** Number of rejected duplicates. */
+    private long duplicates = 0;
+
+    /**
+     * Instantiates a new deduplicator keeping all fingerprints, which rejects a
+     * new puzzle only on a 64-bit fingerprint collision.
+     */
+    public PuzzleDeduplicator() {
+        this.table = new long[64];
+    }
+
+    /**
+     * Instantiates a new deduplicator with a Bloom filter.
+     *
+     * @param expectedPuzzles the expected number of puzzles
+     * @param falsePositiveRate the share of new puzzles wrongly rejected at the expected size
+     */
+    public PuzzleDeduplicator(long expectedPuzzles, double falsePositiveRate) {
+        if (expectedPuzzles < 1) {
+            throw new IllegalArgumentException("Incorrect expected puzzles (" + expectedPuzzles + ")");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Incorrect false positive rate (" + falsePositiveRate + ")");
+        }
+        double ln2 = Math.log(2);
+        long words = (long) Math.ceil(-expectedPuzzles * Math.log(falsePositiveRate) / (ln2 * ln2) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Incorrect expected puzzles (" + expectedPuzzles + ")");
+        }
+        this.bits = new long[(int) Math.max(1, words)];
+        this.bitCount = bits.length * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedPuzzles * ln2));
+    }
+
+    /**
+     * Adds a puzzle.
+     *
+     * @param sudoku the sudoku
+     * @return true, if the puzzle is new, false if it (or a variant of it) was already added
+     */
+    public boolean add(Sudoku sudoku) {
+        return add(fingerprint(sudoku));
+    }
+
+    /**
+     * Adds a fingerprint.
+     *
+     * @param fingerprint the fingerprint
+     * @return true, if the fingerprint is new
+     */
+    public synchronized boolean add(long fingerprint) {
+        boolean added = table != null ? addExact(fingerprint) : addBloom(fingerprint);
+        if (added) {
+            size++;
+        } else {
+            duplicates++;
+        }
+        return added;
+    }
+
+    /**
+     * Checks if a puzzle (or a variant of it) was added.
+     *
+     * @param sudoku the sudoku
+     * @return true, if added
+     */
+    public synchronized boolean contains(Sudoku sudoku) {
+        long fingerprint = fingerprint(sudoku);
+        if (table != null) {
+            long key = fingerprint == 0 ? 1 : fingerprint;
+            for (int slot = slot(key); table[slot] != 0; slot = (slot + 1) & (table.length - 1)) {
+                if (table[slot] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long step = mix(fingerprint) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(fingerprint + i * step, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of added puzzles.
+     *
+     * @return the size
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of rejected duplicates.
+     *
+     * @return the duplicates
+     */
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Checks if the deduplicator uses a Bloom filter.
+     *
+     * @return true, if Bloom filter mode
+     */
+    public boolean isBloomFilter() {
+        return bits != null;
+    }
+
+    /**
+     * Computes the fingerprint of a puzzle (a hash of its canonical form).
+     *
+     * @param sudoku the sudoku
+     * @return the fingerprint
+     */
+    public static long fingerprint(Sudoku sudoku) {
+        long result = 0;
+        for (int value : canonicalForm(sudoku)) {
+            result = mix(result * 16 + value);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the canonical form of the clues of a puzzle: the smallest grid
+     * (row by row, empty cells as 0) over all transpositions and row and column
+     * orders that keep bands and stacks together, with digits relabeled in
+     * order of first appearance.
+     *
+     * For each transposition and column order the rows are chosen one by one,
+     * always taking the rows that give the smallest next row and branching only
+     * on ties, and arrangements whose rows so far exceed the best grid found are
+     * dropped. Empty rows of one band are interchangeable, so only one of them
+     * is tried.
+     *
+     * @param sudoku the sudoku
+     * @return the canonical form (row*9 + column)
+     */
+    public static int[] canonicalForm(Sudoku sudoku) {
+        int[] grid = new int[N * N];
+        int[] transposed = new int[N * N];
+        for (int cell = 0; cell < N * N; cell++) {
+            grid[cell] = sudoku.getCellValue(cell / N, cell % N);
+            transposed[cell] = sudoku.getCellValue(cell % N, cell / N);
+        }
+        int[] best = new int[N * N];
+        Arrays.fill(best, N + 1);
+        int[] arranged = new int[N * N];
+        int[] cols = new int[N];
+        for (int[] source : new int[][] {grid, transposed}) {
+            for (int[] stacks : ORDERS) {
+                for (int[] first : ORDERS) {
+                    for (int[] second : ORDERS) {
+                        for (int[] third : ORDERS) {
+                            int[][] inner = {first, second, third};
+                            for (int col = 0; col < N; col++) {
+                                cols[col] = stacks[col / 3] * 3 + inner[col / 3][col % 3];
+                            }
+                            for (int cell = 0; cell < N * N; cell++) {
+                                arranged[cell] = source[cell / N * N + cols[cell % N]];
+                            }
+                            chooseRows(arranged, 0, 0, -1, new int[N + 1], 1, new int[N * N], best);
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Choose the row at a level of the canonical form.
+     *
+     * @param arranged the grid with columns arranged
+     * @param level the level (output row)
+     * @param usedRows the mask of rows used
+     * @param band the band of the current output band
+     * @param labels the labels of digits (0 for not labeled yet)
+     * @param nextLabel the next free label
+     * @param output the output rows so far
+     * @param best the best grid found
+     */
+    private static void chooseRows(int[] arranged, int level, int usedRows, int band, int[] labels, int nextLabel,
+            int[] output, int[] best) {
+        if (level == N) {
+            System.arraycopy(output, 0, best, 0, N * N);
+            return;
+        }
+        // compare the rows so far with the best grid, which may have changed in another branch
+        int order = 0;
+        for (int i = 0; i < level * N && order == 0; i++) {
+            order = Integer.compare(output[i], best[i]);
+        }
+        if (order > 0) {
+            return;
+        }
+
+        int[] rows = new int[N];
+        int[][] segments = new int[N][];
+        int count = 0;
+        int emptyBands = 0;
+        for (int row = 0; row < N; row++) {
+            if ((usedRows & (1 << row)) != 0) {
+                continue;
+            }
+            if (level % 3 == 0 ? (usedRows & (7 << (row / 3 * 3))) != 0 : row / 3 != band) {
+                continue;
+            }
+            int[] segment = new int[N];
+            int label = nextLabel;
+            int[] newLabels = new int[N + 1];
+            boolean empty = true;
+            for (int col = 0; col < N; col++) {
+                int value = arranged[row * N + col];
+                if (value != 0) {
+                    empty = false;
+                    if (labels[value] == 0 && newLabels[value] == 0) {
+                        newLabels[value] = label++;
+                    }
+                    segment[col] = labels[value] != 0 ? labels[value] : newLabels[value];
+                }
+            }
+            if (empty) {
+                if ((emptyBands & (1 << (row / 3))) != 0) {
+                    continue;
+                }
+                emptyBands |= 1 << (row / 3);
+            }
+            rows[count] = row;
+            segments[count++] = segment;
+        }
+
+        int[] smallest = null;
+        for (int i = 0; i < count; i++) {
+            if (smallest == null || compare(segments[i], smallest) < 0) {
+                smallest = segments[i];
+            }
+        }
+        if (order == 0) {
+            int versus = 0;
+            for (int col = 0; col < N && versus == 0; col++) {
+                versus = Integer.compare(smallest[col], best[level * N + col]);
+            }
+            if (versus > 0) {
+                return;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (compare(segments[i], smallest) != 0) {
+                continue;
+            }
+            int row = rows[i];
+            int[] rowLabels = labels.clone();
+            int label = nextLabel;
+            for (int col = 0; col < N; col++) {
+                int value = arranged[row * N + col];
+                if (value != 0 && rowLabels[value] == 0) {
+                    rowLabels[value] = label++;
+                }
+            }
+            System.arraycopy(segments[i], 0, output, level * N, N);
+            chooseRows(arranged, level + 1, usedRows | (1 << row), row / 3, rowLabels, label, output, best);
+        }
+    }
+
+    /**
+     * Compare two rows.
+     *
+     * @param first the first row
+     * @param second the second row
+     * @return the comparison result
+     */
+    private static int compare(int[] first, int[] second) {
+        for (int col = 0; col < N; col++) {
+            if (first[col] != second[col]) {
+                return Integer.compare(first[col], second[col]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Add a fingerprint to the exact set.
+     *
+     * @param fingerprint the fingerprint
+     * @return true, if new
+     */
+    private boolean addExact(long fingerprint) {
+        long key = fingerprint == 0 ? 1 : fingerprint;
+        int slot = slot(key);
+        for (; table[slot] != 0; slot = (slot + 1) & (table.length - 1)) {
+            if (table[slot] == key) {
+                return false;
+            }
+        }
+        table[slot] = key;
+        if ((size + 1) * 2 > table.length) {
+            long[] old = table;
+            table = new long[old.length * 2];
+            for (long entry : old) {
+                if (entry != 0) {
+                    int newSlot = slot(entry);
+                    while (table[newSlot] != 0) {
+                        newSlot = (newSlot + 1) & (table.length - 1);
+                    }
+                    table[newSlot] = entry;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a fingerprint to the Bloom filter.
+     *
+     * @param fingerprint the fingerprint
+     * @return true, if any of its bits was not set
+     */
+    private boolean addBloom(long fingerprint) {
+        boolean added = false;
+        long step = mix(fingerprint) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(fingerprint + i * step, bitCount);
+            int word = (int) (bit >>> 6);
+            if ((bits[word] & (1L << bit)) == 0) {
+                bits[word] |= 1L << bit;
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Get the slot of a key in the exact set.
+     *
+     * @param key the key
+     * @return the slot
+     */
+    private int slot(long key) {
+        return (int) mix(key) & (table.length - 1);
+    }
+
+    /**
+     * Mix bits (the SplitMix64 finalizer).
+     *
+     * @param value the value
+     * @return the mixed value
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+        return "PuzzleDeduplicator [" + (isBloomFilter() ? "bloom " + bitCount + " bits, " + hashCount + " hashes"
+                : "exact") + ", size=" + size + ", duplicates=" + duplicates + "]";
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+/**
+ * Iterator that generates puzzles on an executor as they are consumed.
+ * At most lookahead puzzles are generated ahead of the consumer, and they
+ * are returned in the order they get accepted. Closing the iterator cancels
+ * puzzles still being generated.
+ *
+ * @author Martin Furek
+ */
+public class PuzzleIterator implements Iterator<Sudoku>, AutoCloseable {
+
+    /** The factory. */
+    private SudokuFactory factory;
+
+    /** The difficulty. */
+    private SudokuDifficulty difficulty;
+
+    /** Completion of submitted puzzles. */
+    private CompletionService<Sudoku> completion;
+
+    /** Puzzles being generated. */
+    private Set<Future<Sudoku>> pending = new HashSet<Future<Sudoku>>();
+
+    /** Maximum number of puzzles generated ahead. */
+    private int lookahead;
+
+    /** Number of puzzles still to submit. */
+    private long toSubmit;
+
+    /** Number of puzzles still to return. */
+    private long toReturn;
+
+    /** Whether the iterator is closed. */
+    private boolean closed = false;
+
+    /**
+     * Instantiates a new puzzle iterator.
+     *
+     * @param factory the factory
+     * @param difficulty the difficulty
+     * @param executor the executor
+     * @param lookahead the maximum number of puzzles generated ahead
+     * @param count the number of puzzles (Long.MAX_VALUE for no limit)
+     */
+    public PuzzleIterator(SudokuFactory factory, SudokuDifficulty difficulty, ExecutorService executor,
+            int lookahead, long count) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("Incorrect lookahead (" + lookahead + ")");
+        }
+        this.factory = factory;
+        this.difficulty = difficulty;
+        this.completion = new ExecutorCompletionService<Sudoku>(executor);
+        this.lookahead = lookahead;
+        this.toSubmit = count;
+        this.toReturn = count;
+        submit();
+    }
+
+    /**
+     * Submit puzzles until lookahead is reached.
+     */
+    private void submit() {
+        while (!closed && pending.size() < lookahead && toSubmit > 0) {
+            pending.add(completion.submit(
+                    () -> factory.generateSmallestSolvableSudoku(difficulty, ThreadLocalRandom.current())));
+            toSubmit--;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+        return !closed && toReturn > 0;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public Sudoku next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            Future<Sudoku> future = completion.take();
+            pending.remove(future);
+            toReturn--;
+            submit();
+            return future.get();
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generating interrupted", e);
+        } catch (ExecutionException e) {
+            close();
+            throw new IllegalStateException("Generating failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops generating and cancels puzzles still being generated.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Future<Sudoku> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Gets the number of puzzles being generated.
+     *
+     * @return the pending count
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+/**
+ * Pool of ready puzzles per difficulty, so serving a puzzle does not wait for
+ * generation. Each difficulty has a lock-free queue with a capacity and a low
+ * water mark. When a bucket drops below its low water mark, background
+ * workers generate puzzles until it is full again. Ready puzzles can be saved
+ * to a snapshot file on shutdown and loaded back before {@link #start()}.
+ *
+ * @author Martin Furek
+ */
+public class PuzzlePool implements AutoCloseable {
+
+    /** The Constant logger. */
+    final static Logger logger = Logger.getLogger(PuzzlePool.class);
+
+    /** Number of difficulties. */
+    private static final int DIFFICULTIES = SudokuDifficulty.values().length;
+
+    /** The factory. */
+    private SudokuFactory factory;
+
+    /** Background workers. */
+    private ExecutorService workers;
+
+    /** Ready puzzles of each difficulty (index is ordinal). */
+    private List<Queue<Sudoku>> buckets = new ArrayList<Queue<Sudoku>>(DIFFICULTIES);
+
+    /** Number of ready puzzles of each difficulty. */
+    private AtomicInteger[] sizes = new AtomicInteger[DIFFICULTIES];
+
+    /** Number of puzzles being generated for each difficulty. */
+    private AtomicInteger[] inFlight = new AtomicInteger[DIFFICULTIES];
+
+    /** Capacity of each difficulty. */
+    private volatile int[] capacities = new int[DIFFICULTIES];
+
+    /** Low water mark of each difficulty. */
+    private volatile int[] lowWaterMarks = new int[DIFFICULTIES];
+
+    /** Puzzles served from the pool. */
+    private LongAdder[] hits = new LongAdder[DIFFICULTIES];
+
+    /** Requests that found an empty bucket. */
+    private LongAdder[] misses = new LongAdder[DIFFICULTIES];
+
+    /** Puzzles generated by the workers. */
+    private LongAdder[] generated = new LongAdder[DIFFICULTIES];
+
+    /** Whether the pool is started. */
+    private volatile boolean started = false;
+
+    /** Whether the pool is closed. */
+    private volatile boolean closed = false;
+
+    /**
+     * Instantiates a new puzzle pool with the same capacity for every difficulty.
+     *
+     * @param factory the factory
+     * @param workers the number of background workers
+     * @param capacity the capacity of each difficulty
+     * @param lowWaterMark the low water mark of each difficulty
+     */
+    public PuzzlePool(SudokuFactory factory, int workers, int capacity, int lowWaterMark) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Incorrect number of workers (" + workers + ")");
+        }
+        this.factory = factory;
+        this.workers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < DIFFICULTIES; i++) {
+            buckets.add(new ConcurrentLinkedQueue<Sudoku>());
+            sizes[i] = new AtomicInteger();
+            inFlight[i] = new AtomicInteger();
+            hits[i] = new LongAdder();
+            misses[i] = new LongAdder();
+            generated[i] = new LongAdder();
+        }
+        for (SudokuDifficulty difficulty : SudokuDifficulty.values()) {
+            setCapacity(difficulty, capacity, lowWaterMark);
+        }
+    }
+
+    /**
+     * Sets the capacity and low water mark of a difficulty (capacity 0 disables
+     * it). A started pool fills a raised capacity right away.
+     *
+     * @param difficulty the difficulty
+     * @param capacity the capacity
+     * @param lowWaterMark the low water mark (0 - capacity)
+     */
+    public synchronized void setCapacity(SudokuDifficulty difficulty, int capacity, int lowWaterMark) {
+        if (capacity < 0 || lowWaterMark < 0 || lowWaterMark > capacity) {
+            throw new IllegalArgumentException("Incorrect capacity (" + capacity + ") or low water mark ("
+                    + lowWaterMark + ")");
+        }
+        int[] newCapacities = capacities.clone();
+        int[] newLowWaterMarks = lowWaterMarks.clone();
+        newCapacities[difficulty.ordinal()] = capacity;
+        newLowWaterMarks[difficulty.ordinal()] = lowWaterMark;
+        capacities = newCapacities;
+        lowWaterMarks = newLowWaterMarks;
+        if (started) {
+            refill(difficulty);
+        }
+    }
+
+    /**
+     * Starts filling all difficulties up to their capacity.
+     */
+    public void start() {
+        started = true;
+        for (SudokuDifficulty difficulty : SudokuDifficulty.values()) {
+            refill(difficulty);
+        }
+    }
+
+    /**
+     * Takes a ready puzzle. Never waits for generation.
+     *
+     * @param difficulty the difficulty
+     * @return the sudoku, or null if the bucket is empty
+     */
+    public Sudoku poll(SudokuDifficulty difficulty) {
+        int index = difficulty.ordinal();
+        Sudoku sudoku = buckets.get(index).poll();
+        if (sudoku == null) {
+            misses[index].increment();
+        } else {
+            hits[index].increment();
+            sizes[index].decrementAndGet();
+        }
+        if (sizes[index].get() < lowWaterMarks[index]) {
+            refill(difficulty);
+        }
+        return sudoku;
+    }
+
+    /**
+     * Adds a ready puzzle if the bucket has room.
+     *
+     * @param difficulty the difficulty
+     * @param sudoku the sudoku
+     * @return true, if added
+     */
+    public boolean offer(SudokuDifficulty difficulty, Sudoku sudoku) {
+        int index = difficulty.ordinal();
+        while (true) {
+            int size = sizes[index].get();
+            if (size >= capacities[index]) {
+                return false;
+            }
+            if (sizes[index].compareAndSet(size, size + 1)) {
+                buckets.get(index).offer(sudoku);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Saves the ready puzzles to a snapshot file. The puzzles stay in the pool.
+     *
+     * @param file the file
+     * @return the number of puzzles saved
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public int saveSnapshot(String file) throws IOException {
+        Map<SudokuDifficulty, List<Sudoku>> puzzles =
+                new EnumMap<SudokuDifficulty, List<Sudoku>>(SudokuDifficulty.class);
+        for (SudokuDifficulty difficulty : SudokuDifficulty.values()) {
+            puzzles.put(difficulty, new ArrayList<Sudoku>(buckets.get(difficulty.ordinal())));
+        }
+        int count = PuzzleSnapshot.write(file, puzzles);
+        logger.debug("Saved " + count + " puzzles to " + file);
+        return count;
+    }
+
+    /**
+     * Loads puzzles from a snapshot file into buckets with room. Loading before
+     * {@link #start()} leaves only the rest to be generated.
+     *
+     * @param file the file
+     * @return the number of puzzles loaded
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public int loadSnapshot(String file) throws IOException {
+        int count = 0;
+        for (Map.Entry<SudokuDifficulty, List<Sudoku>> entry : PuzzleSnapshot.read(file).entrySet()) {
+            for (Sudoku sudoku : entry.getValue()) {
+                if (!offer(entry.getKey(), sudoku)) {
+                    break;
+                }
+                count++;
+            }
+        }
+        logger.debug("Loaded " + count + " puzzles from " + file);
+        return count;
+    }
+
+    /**
+     * Schedule generation of puzzles missing to fill a difficulty.
+     *
+     * @param difficulty the difficulty
+     */
+    private void refill(SudokuDifficulty difficulty) {
+        int index = difficulty.ordinal();
+        while (!closed) {
+            int pending = inFlight[index].get();
+            if (sizes[index].get() + pending >= capacities[index]) {
+                return;
+            }
+            if (inFlight[index].compareAndSet(pending, pending + 1)) {
+                try {
+                    workers.execute(() -> generate(difficulty));
+                } catch (RejectedExecutionException e) {
+                    // closed meanwhile
+                    inFlight[index].decrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate one puzzle for a difficulty (runs on a worker). A puzzle lost to
+     * a full bucket or a failure is scheduled again if the bucket is still
+     * short, as nothing else may poll it below its low water mark.
+     *
+     * @param difficulty the difficulty
+     */
+    private void generate(SudokuDifficulty difficulty) {
+        int index = difficulty.ordinal();
+        try {
+            Sudoku sudoku = factory.generateSmallestSolvableSudoku(difficulty, ThreadLocalRandom.current());
+            generated[index].increment();
+            if (!closed) {
+                offer(difficulty, sudoku);
+            }
+        } catch (RuntimeException e) {
+            if (!closed) {
+                logger.error("Generating " + difficulty + " failed", e);
+            }
+        } finally {
+            inFlight[index].decrementAndGet();
+            if (!closed) {
+                refill(difficulty);
+            }
+        }
+    }
+
+    /**
+     * Stops the background workers. Ready puzzles stay available.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdownNow();
+    }
+
+    /**
+     * Gets the number of ready puzzles of a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the size
+     */
+    public int getSize(SudokuDifficulty difficulty) {
+        return sizes[difficulty.ordinal()].get();
+    }
+
+    /**
+     * Gets the number of puzzles being generated for a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the in flight count
+     */
+    public int getInFlight(SudokuDifficulty difficulty) {
+        return inFlight[difficulty.ordinal()].get();
+    }
+
+    /**
+     * Gets the capacity of a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the capacity
+     */
+    public int getCapacity(SudokuDifficulty difficulty) {
+        return capacities[difficulty.ordinal()];
+    }
+
+    /**
+     * Gets the low water mark of a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the low water mark
+     */
+    public int getLowWaterMark(SudokuDifficulty difficulty) {
+        return lowWaterMarks[difficulty.ordinal()];
+    }
+
+    /**
+     * Gets the number of puzzles served from the pool.
+     *
+     * @param difficulty the difficulty
+     * @return the hits
+     */
+    public long getHits(SudokuDifficulty difficulty) {
+        return hits[difficulty.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of requests that found an empty bucket.
+     *
+     * @param difficulty the difficulty
+     * @return the misses
+     */
+    public long getMisses(SudokuDifficulty difficulty) {
+        return misses[difficulty.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of puzzles generated by the workers.
+     *
+     * @param difficulty the difficulty
+     * @return the generated count
+     */
+    public long getGenerated(SudokuDifficulty difficulty) {
+        return generated[difficulty.ordinal()].sum();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder("PuzzlePool [");
+        for (SudokuDifficulty difficulty : SudokuDifficulty.values()) {
+            output.append(difficulty + ": size=" + getSize(difficulty) + "/" + getCapacity(difficulty)
+                    + ", hits=" + getHits(difficulty) + ", misses=" + getMisses(difficulty) + "; ");
+        }
+        return output.append("]").toString();
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+/**
+ * Compact file format for ready puzzles, so they survive restarts.
+ *
+ * A file starts with a magic int, a version and the puzzle count. Each puzzle
+ * is stored as its difficulty, flags, rating and id followed by the solution
+ * packed two digits per byte (41 bytes) and a bit set of the given cells
+ * (11 bytes). Puzzles without a solution store their own grid in its place.
+ * The whole file is written and read in one sequential pass. Writing goes to
+ * a temporary file next to the target, which then replaces the target
+ * atomically, so a crash never leaves a partial snapshot behind.
+ *
+ * @author Martin Furek
+ */
+public class PuzzleSnapshot {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** File signature ("SDKP"). */
+    private static final int MAGIC = 0x53444B50;
+
+    /** Format version. */
+    private static final int VERSION = 1;
+
+    /** Flag of a stored solution. */
+    private static final int HAS_SOLUTION = 1;
+
+    /** Bytes of packed digits. */
+    private static final int DIGIT_BYTES = (N * N + 1) / 2;
+
+    /** Bytes of the given cell bit set. */
+    private static final int GIVEN_BYTES = (N * N + 7) / 8;
+
+    /** Longest id in bytes (stored as an unsigned short). */
+    private static final int MAX_ID_BYTES = 0xFFFF;
+
+    /**
+     * Writes puzzles to a file.
+     *
+     * @param file the file
+     * @param puzzles the puzzles of each difficulty
+     * @return the number of puzzles written
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws IllegalArgumentException if an id is longer than 65535 bytes
+     */
+    public static int write(String file, Map<SudokuDifficulty, ? extends Collection<Sudoku>> puzzles)
+            throws IOException {
+        List<SudokuDifficulty> difficulties = new ArrayList<SudokuDifficulty>();
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        List<byte[]> ids = new ArrayList<byte[]>();
+        for (Map.Entry<SudokuDifficulty, ? extends Collection<Sudoku>> entry : puzzles.entrySet()) {
+            for (Sudoku sudoku : entry.getValue()) {
+                byte[] id = sudoku.getId().getBytes(StandardCharsets.UTF_8);
+                if (id.length > MAX_ID_BYTES) {
+                    throw new IllegalArgumentException("Incorrect id length (" + id.length + ")");
+                }
+                difficulties.add(entry.getKey());
+                sudokus.add(sudoku);
+                ids.add(id);
+            }
+        }
+        Path target = Paths.get(file).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            write(temp, difficulties, sudokus, ids);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return sudokus.size();
+    }
+
+    /**
+     * Writes puzzles to a new file.
+     *
+     * @param file the file
+     * @param difficulties the difficulty of each puzzle
+     * @param sudokus the puzzles
+     * @param ids the encoded id of each puzzle
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void write(Path file, List<SudokuDifficulty> difficulties, List<Sudoku> sudokus,
+            List<byte[]> ids) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeInt(sudokus.size());
+            byte[] digits = new byte[DIGIT_BYTES];
+            byte[] givens = new byte[GIVEN_BYTES];
+            for (int i = 0; i < sudokus.size(); i++) {
+                Sudoku sudoku = sudokus.get(i);
+                Sudoku solution = sudoku.getSolution();
+                byte[] id = ids.get(i);
+                output.writeByte(difficulties.get(i).ordinal());
+                output.writeByte(solution != null ? HAS_SOLUTION : 0);
+                output.writeDouble(sudoku.getRating());
+                output.writeShort(id.length);
+                output.write(id);
+                packDigits(solution != null ? solution : sudoku, digits);
+                output.write(digits);
+                if (solution != null) {
+                    packGivens(sudoku, givens);
+                    output.write(givens);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads puzzles from a file.
+     *
+     * @param file the file
+     * @return the puzzles of each difficulty
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static Map<SudokuDifficulty, List<Sudoku>> read(String file) throws IOException {
+        ByteBuffer input = ByteBuffer.wrap(Files.readAllBytes(Paths.get(file)));
+        Map<SudokuDifficulty, List<Sudoku>> result =
+                new EnumMap<SudokuDifficulty, List<Sudoku>>(SudokuDifficulty.class);
+        SudokuDifficulty[] difficulties = SudokuDifficulty.values();
+        try {
+            if (input.getInt() != MAGIC || input.getShort() != VERSION) {
+                throw new IOException("Incorrect snapshot file (" + file + ")");
+            }
+            int count = input.getInt();
+            byte[] digits = new byte[DIGIT_BYTES];
+            byte[] givens = new byte[GIVEN_BYTES];
+            for (int i = 0; i < count; i++) {
+                int difficulty = input.get();
+                int flags = input.get();
+                double rating = input.getDouble();
+                byte[] idBytes = new byte[input.getShort() & 0xFFFF];
+                input.get(idBytes);
+                String id = new String(idBytes, StandardCharsets.UTF_8);
+                if (difficulty < 0 || difficulty >= difficulties.length) {
+                    throw new IOException("Incorrect difficulty (" + difficulty + ") in " + file);
+                }
+                input.get(digits);
+                int[][] grid = unpackDigits(digits);
+                Sudoku sudoku;
+                if ((flags & HAS_SOLUTION) != 0) {
+                    input.get(givens);
+                    int[][] puzzle = new int[N][N];
+                    for (int cell = 0; cell < N * N; cell++) {
+                        if ((givens[cell >> 3] & (1 << (cell & 7))) != 0) {
+                            puzzle[cell / N][cell % N] = grid[cell / N][cell % N];
+                        }
+                    }
+                    sudoku = new Sudoku(puzzle, id);
+                    sudoku.setSolution(new Sudoku(grid, id));
+                } else {
+                    sudoku = new Sudoku(grid, id);
+                }
+                sudoku.setRating(rating);
+                result.computeIfAbsent(difficulties[difficulty], d -> new ArrayList<Sudoku>()).add(sudoku);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot file (" + file + ")", e);
+        }
+        return result;
+    }
+
+    /**
+     * Pack cell values two per byte.
+     *
+     * @param sudoku the sudoku
+     * @param digits the packed digits
+     */
+    private static void packDigits(Sudoku sudoku, byte[] digits) {
+        for (int i = 0; i < DIGIT_BYTES; i++) {
+            int low = sudoku.getCellValue((2 * i) / N, (2 * i) % N);
+            int high = 2 * i + 1 < N * N ? sudoku.getCellValue((2 * i + 1) / N, (2 * i + 1) % N) : 0;
+            digits[i] = (byte) (low | high << 4);
+        }
+    }
+
+    /**
+     * Unpack cell values.
+     *
+     * @param digits the packed digits
+     * @return the grid
+     */
+    private static int[][] unpackDigits(byte[] digits) {
+        int[][] grid = new int[N][N];
+        for (int cell = 0; cell < N * N; cell++) {
+            grid[cell / N][cell % N] = (digits[cell >> 1] >> ((cell & 1) << 2)) & 0xF;
+        }
+        return grid;
+    }
+
+    /**
+     * Pack the given cells as a bit set.
+     *
+     * @param sudoku the sudoku
+     * @param givens the bit set
+     */
+    private static void packGivens(Sudoku sudoku, byte[] givens) {
+        for (int i = 0; i < GIVEN_BYTES; i++) {
+            givens[i] = 0;
+        }
+        for (int cell = 0; cell < N * N; cell++) {
+            if (sudoku.getCellValue(cell / N, cell % N) != 0) {
+                givens[cell >> 3] |= 1 << (cell & 7);
+            }
+        }
+    }
+}
@@ -14,14 +14,36 @@
  */
 package com.furcino.sudokulib.models.generators;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.log4j.Logger;
 
 import com.furcino.sudokulib.models.SudokuDifficulty;
 import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuTransform;
+import com.furcino.sudokulib.models.rating.DifficultyFeatures;
 import com.furcino.sudokulib.models.solvers.SudokuHumanSolver;
 import com.furcino.sudokulib.models.solvers.SudokuPossibilityBasedSolver;
 import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
@@ -38,8 +60,17 @@ public class SudokuFactory {
 	/** The Constant logger. */
 	final static Logger logger = Logger.getLogger(SudokuFactory.class);
 	
-	/** The random. */
-	private Random random = new Random();
+	/** Key mixing constant (the 64-bit golden ratio). */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** Rejects generated duplicates when set. */
+	private volatile PuzzleDeduplicator deduplicator;
+
+	/** Number of times a grid is dug again before it is discarded. */
+	private static final int MAX_REDIGS = 3;
+
+	/** Number of most recent removals put back before digging again. */
+	private static final int BACKTRACK_REMOVALS = 6;
 
     /**
      * Generate.
@@ -55,6 +86,241 @@ public class SudokuFactory {
 		}
 		return sudokus;
     }
+
+    /**
+     * Generate puzzles where each graded puzzle is followed by variants
+     * (random transforms of it), which have the same difficulty and cost
+     * microseconds instead of a full generation.
+     *
+     * @param numberOfPuzzles the number of puzzles
+     * @param difficulty the difficulty
+     * @param variants the number of variants of each graded puzzle
+     * @return the list of sudokus
+     */
+    public List<Sudoku> generate(int numberOfPuzzles, SudokuDifficulty difficulty, int variants) {
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        while (sudokus.size() < numberOfPuzzles) {
+            Sudoku sudoku = this.generateSmallestSolvableSudoku(difficulty);
+            sudokus.add(sudoku);
+            int count = Math.min(variants, numberOfPuzzles - sudokus.size());
+            sudokus.addAll(getVariants(sudoku, count, ThreadLocalRandom.current()));
+        }
+        return sudokus;
+    }
+
+    /**
+     * Get distinct variants of a puzzle (different from the puzzle and each other).
+     * The id of a variant is the id of the puzzle with the suffix "-v" and its
+     * number (from 1), so seeded addresses stay recognizable.
+     *
+     * @param sudoku the sudoku
+     * @param count the number of variants
+     * @param random the random source
+     * @return the variants
+     */
+    public List<Sudoku> getVariants(Sudoku sudoku, int count, Random random) {
+        List<Sudoku> variants = new ArrayList<Sudoku>();
+        Set<String> seen = new HashSet<String>();
+        seen.add(sudoku.getStringRepresentation());
+        int attempts = 0;
+        while (variants.size() < count && attempts < count * 10) {
+            attempts++;
+            Sudoku variant = sudoku.transform(SudokuTransform.random(random));
+            if (seen.add(variant.getStringRepresentation())) {
+                variant.setId(sudoku.getId() + "-v" + (variants.size() + 1));
+                variants.add(variant);
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Generate puzzles in parallel on a new thread pool.
+     *
+     * @param numberOfPuzzles the number of puzzles
+     * @param difficulty the difficulty
+     * @param parallelism the number of threads
+     * @param ordered true to return puzzles in submission order, false in completion order
+     * @return the list of sudokus
+     */
+    public List<Sudoku> generate(int numberOfPuzzles, SudokuDifficulty difficulty, int parallelism, boolean ordered) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Incorrect parallelism (" + parallelism + ")");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            return generate(numberOfPuzzles, difficulty, executor, ordered);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Generate puzzles in parallel on an executor. Each worker thread uses its
+     * own random source, so workers do not contend on a shared one.
+     *
+     * @param numberOfPuzzles the number of puzzles
+     * @param difficulty the difficulty
+     * @param executor the executor
+     * @param ordered true to return puzzles in submission order, false in completion order
+     * @return the list of sudokus
+     */
+    public List<Sudoku> generate(int numberOfPuzzles, SudokuDifficulty difficulty, ExecutorService executor,
+            boolean ordered) {
+        return generate(numberOfPuzzles, executor, ordered,
+                index -> generateSmallestSolvableSudoku(difficulty, ThreadLocalRandom.current()));
+    }
+
+    /**
+     * Generate puzzles 0 to numberOfPuzzles-1 of a seed sequentially.
+     *
+     * @param numberOfPuzzles the number of puzzles
+     * @param difficulty the difficulty
+     * @param seed the seed
+     * @return the list of sudokus
+     * @see #generate(long, SudokuDifficulty, long)
+     */
+    public List<Sudoku> generateSeeded(int numberOfPuzzles, SudokuDifficulty difficulty, long seed) {
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        for (int n = 0; n < numberOfPuzzles; n++) {
+            sudokus.add(generate(seed, difficulty, n));
+        }
+        return sudokus;
+    }
+
+    /**
+     * Generate puzzles 0 to numberOfPuzzles-1 of a seed on an executor. The
+     * result is the same as the sequential one.
+     *
+     * @param numberOfPuzzles the number of puzzles
+     * @param difficulty the difficulty
+     * @param seed the seed
+     * @param executor the executor
+     * @return the list of sudokus in index order
+     * @see #generate(long, SudokuDifficulty, long)
+     */
+    public List<Sudoku> generateSeeded(int numberOfPuzzles, SudokuDifficulty difficulty, long seed,
+            ExecutorService executor) {
+        return generate(numberOfPuzzles, executor, true, index -> generate(seed, difficulty, index));
+    }
+
+    /**
+     * Generate the puzzle addressed by a seed, a difficulty and an index. The
+     * same address always gives the same puzzle, on any thread and in any
+     * order, so storing the address is enough to get the puzzle back (with
+     * the default, non adaptive technique ordering). The id of the puzzle is
+     * its address.
+     *
+     * The deduplicator is not consulted, as a rejected puzzle would be
+     * replaced by one depending on what was generated before. Puzzles of
+     * different addresses may be duplicates; filter them afterwards if
+     * needed.
+     *
+     * @param seed the seed
+     * @param difficulty the difficulty
+     * @param index the index
+     * @return the sudoku
+     */
+    public Sudoku generate(long seed, SudokuDifficulty difficulty, long index) {
+        Sudoku sudoku = generateUntil(difficulty, 0, 81, getTaskRandom(seed, difficulty, index), Long.MAX_VALUE,
+                new GenerationStats(), false);
+        sudoku.setId(Long.toHexString(seed) + "-" + difficulty + "-" + index);
+        return sudoku;
+    }
+
+    /**
+     * Gets the random source of a seeded task. SplittableRandom (SplitMix64)
+     * mixes the seed, the difficulty and the index, so neighbouring addresses
+     * get unrelated sources. Every task gets its own instance.
+     *
+     * @param seed the seed
+     * @param difficulty the difficulty
+     * @param index the index
+     * @return the random source
+     */
+    public static Random getTaskRandom(long seed, SudokuDifficulty difficulty, long index) {
+        long key = new SplittableRandom(seed).nextLong();
+        key = new SplittableRandom(key + difficulty.ordinal() * GOLDEN_GAMMA).nextLong();
+        key = new SplittableRandom(key + index * GOLDEN_GAMMA).nextLong();
+        return new Random(key);
+    }
+
+    /**
+     * Run generation tasks on an executor.
+     *
+     * @param numberOfPuzzles the number of puzzles
+     * @param executor the executor
+     * @param ordered true, to return puzzles in task order
+     * @param task the task generating the puzzle of an index
+     * @return the list of sudokus
+     */
+    private List<Sudoku> generate(int numberOfPuzzles, ExecutorService executor, boolean ordered,
+            IntFunction<Sudoku> task) {
+        CompletionService<Sudoku> completion = new ExecutorCompletionService<Sudoku>(executor);
+        List<Future<Sudoku>> futures = new ArrayList<Future<Sudoku>>();
+        for (int n = 0; n < numberOfPuzzles; n++) {
+            int index = n;
+            futures.add(completion.submit(() -> task.apply(index)));
+        }
+
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        try {
+            for (int n = 0; n < numberOfPuzzles; n++) {
+                Future<Sudoku> future = ordered ? futures.get(n) : completion.take();
+                sudokus.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generating interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generating failed", e.getCause());
+        } finally {
+            for (Future<Sudoku> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return sudokus;
+    }
+	
+    /**
+     * Lazy stream of puzzles, each generated when the consumer asks for it.
+     *
+     * @param difficulty the difficulty
+     * @return the infinite stream of sudokus
+     */
+    public Stream<Sudoku> stream(SudokuDifficulty difficulty) {
+        return Stream.generate(() -> generateSmallestSolvableSudoku(difficulty));
+    }
+
+    /**
+     * Stream of puzzles generated on an executor, at most lookahead ahead of
+     * the consumer, in the order they get accepted. The stream has to be
+     * closed (try-with-resources) to cancel puzzles still being generated.
+     *
+     * @param difficulty the difficulty
+     * @param executor the executor
+     * @param lookahead the maximum number of puzzles generated ahead
+     * @return the infinite stream of sudokus
+     */
+    public Stream<Sudoku> stream(SudokuDifficulty difficulty, ExecutorService executor, int lookahead) {
+        PuzzleIterator iterator = iterator(difficulty, executor, lookahead, Long.MAX_VALUE);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    /**
+     * Iterator over puzzles generated on an executor, at most lookahead ahead
+     * of the consumer.
+     *
+     * @param difficulty the difficulty
+     * @param executor the executor
+     * @param lookahead the maximum number of puzzles generated ahead
+     * @param count the number of puzzles (Long.MAX_VALUE for no limit)
+     * @return the iterator
+     */
+    public PuzzleIterator iterator(SudokuDifficulty difficulty, ExecutorService executor, int lookahead, long count) {
+        return new PuzzleIterator(this, difficulty, executor, lookahead, count);
+    }
 	
 	/**
 	 * Generate smallest solvable sudoku.
@@ -63,140 +329,489 @@ public class SudokuFactory {
 	 * @return the sudoku
 	 */
 	public Sudoku generateSmallestSolvableSudoku(SudokuDifficulty difficulty) {
-		Sudoku sudoku = null;
-		Sudoku solution = null;
-		int rows[] = {0, 1, 2, 3, 4, 5, 6, 7, 8};
-        int cols[] = {0, 1, 2, 3, 4, 5, 6, 7, 8};
-        CommonUtil.shuffleArray(rows);
-        CommonUtil.shuffleArray(cols);
-
-		while (true) {
-            sudoku = getRandomInitialSudoku();
-            solution = new Sudoku(sudoku);
-            CommonUtil.shuffleArray(rows);
-            CommonUtil.shuffleArray(cols);
-
-			for (int i = 0; i < 9; i++){
-				for (int j = 0; j < 9; j++){
-					Sudoku lastSudoku = new Sudoku(sudoku);
-					
-					sudoku.setCellValue(rows[i], cols[j], 0);
-					sudoku = new Sudoku(sudoku);
-					
-					SudokuHumanSolver humanSolver = new SudokuHumanSolver(new Sudoku(sudoku), difficulty);
-					
-					try {
-						int solutions = humanSolver.solve();
-						
-						if (solutions != 1) {
-							sudoku = lastSudoku;
-						}
-					} catch (TimeoutException e) {
-						sudoku = lastSudoku;
-					} catch (SolvingException e) {
-						sudoku = lastSudoku;
-					}
-				}
+		return generateSmallestSolvableSudoku(difficulty, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Generate smallest solvable sudoku with a given random source.
+	 *
+	 * @param difficulty the difficulty
+	 * @param random the random source
+	 * @return the sudoku
+	 */
+	public Sudoku generateSmallestSolvableSudoku(SudokuDifficulty difficulty, Random random) {
+		return generateWithClues(difficulty, 0, 81, random);
+	}
+
+	/**
+	 * Generate a sudoku with a clue count in a range. Digging stops at the
+	 * lowest count and dug puzzles above the highest count are dug again.
+	 * Ranges lower than a difficulty usually reaches can take very long.
+	 *
+	 * @param difficulty the difficulty
+	 * @param minClues the lowest clue count
+	 * @param maxClues the highest clue count
+	 * @return the sudoku
+	 */
+	public Sudoku generateWithClues(SudokuDifficulty difficulty, int minClues, int maxClues) {
+		return generateWithClues(difficulty, minClues, maxClues, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Generate a sudoku with a clue count in a range with a given random source.
+	 *
+	 * @param difficulty the difficulty
+	 * @param minClues the lowest clue count
+	 * @param maxClues the highest clue count
+	 * @param random the random source
+	 * @return the sudoku
+	 */
+	public Sudoku generateWithClues(SudokuDifficulty difficulty, int minClues, int maxClues, Random random) {
+		if (minClues < 0 || maxClues > 81 || minClues > maxClues) {
+			throw new IllegalArgumentException("Incorrect clue range (" + minClues + "-" + maxClues + ")");
+		}
+		return generateUntil(difficulty, minClues, maxClues, random, Long.MAX_VALUE, new GenerationStats(), true);
+	}
+
+	/**
+	 * Generate puzzles until they are all finished or the deadline passes. The
+	 * deadline is checked between removals, so the run ends shortly after it
+	 * and the puzzle being generated at that moment is dropped.
+	 *
+	 * @param numberOfPuzzles the number of puzzles
+	 * @param difficulty the difficulty
+	 * @param deadline the deadline
+	 * @return the finished puzzles with statistics of the run
+	 */
+	public GenerationResult generate(int numberOfPuzzles, SudokuDifficulty difficulty, Instant deadline) {
+		long start = System.currentTimeMillis();
+		GenerationStats stats = new GenerationStats();
+		List<Sudoku> sudokus = new ArrayList<Sudoku>();
+		while (sudokus.size() < numberOfPuzzles) {
+			Sudoku sudoku = generateUntil(difficulty, 0, 81, ThreadLocalRandom.current(), deadline.toEpochMilli(),
+					stats, true);
+			if (sudoku == null) {
+				break;
 			}
+			sudokus.add(sudoku);
+		}
+		GenerationResult result = new GenerationResult(sudokus, numberOfPuzzles, stats,
+				System.currentTimeMillis() - start);
+		logger.debug(result);
+		return result;
+	}
 
-            SudokuHumanSolver humanSolver = new SudokuHumanSolver(new Sudoku(sudoku), difficulty);
-            SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(sudoku));
-			solver.setMaxSolutions(2);
-			
-            try {
-                humanSolver.solve();
-                if (solver.solve() > 1) {
-                	continue;
+	/**
+	 * Generate a sudoku before a deadline.
+	 *
+	 * @param difficulty the difficulty
+	 * @param minClues the lowest clue count
+	 * @param maxClues the highest clue count
+	 * @param random the random source
+	 * @param deadline the deadline (epoch milliseconds)
+	 * @param stats the statistics to update
+	 * @param deduplicate true, to generate again puzzles the deduplicator rejects
+	 * @return the sudoku, or null if the deadline passed
+	 */
+	private Sudoku generateUntil(SudokuDifficulty difficulty, int minClues, int maxClues, Random random,
+			long deadline, GenerationStats stats, boolean deduplicate) {
+		while (System.currentTimeMillis() < deadline) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Generating interrupted");
+            }
+            stats.addGrid();
+            Sudoku solution = getRandomInitialSudoku(random);
+            Sudoku sudoku = digToDifficulty(new Sudoku(solution), shuffledClues(solution, random), 0, solution,
+                    difficulty, minClues, maxClues, random, deadline, stats);
+            if (sudoku != null) {
+                if (deduplicate && !isNew(sudoku)) {
+                    stats.addDuplicateReject();
+                    continue;
                 }
-            } catch (Exception e) {
-			    // do nothing
+                stats.addPuzzle();
+                return sudoku;
             }
+		}
+		return null;
+	}
 
-            switch (humanSolver.getDifficulty()) {
-                case EASY:
-                    if (humanSolver.getBasicSolves() <= 5) {
-                        sudoku.setSolution(solution);
-                        return sudoku;
-                    }
-                    break;
-                case NORMAL:
-                    if (humanSolver.getBasicSolves() > 5 && humanSolver.getBasicLockedCandidatesSolves() == 0 && humanSolver.getAdvancedSolves() == 0) {
-                        sudoku.setSolution(solution);
-                        return sudoku;
-                    }
-                    break;
-                case HARD:
-                    if (humanSolver.getBasicLockedCandidatesSolves() > 0 && humanSolver.getAdvancedSolves() == 0) {
-                        sudoku.setSolution(solution);
-                        return sudoku;
-                    }
-                    break;
-                case VERY_HARD:
-                    if (humanSolver.getAdvancedSolves() > 0) {
-                        sudoku.setSolution(solution);
-                        return sudoku;
-                    }
-                    break;
-                default:
-                    break;
-            }
+	/**
+	 * Check a generated puzzle against the deduplicator.
+	 *
+	 * @param sudoku the sudoku
+	 * @return true, if there is no deduplicator or the puzzle is new
+	 */
+	private boolean isNew(Sudoku sudoku) {
+		PuzzleDeduplicator current = this.deduplicator;
+		if (current == null || current.add(sudoku)) {
+			return true;
 		}
+		logger.debug("Duplicate rejected: " + sudoku.getStringRepresentation());
+		return false;
 	}
-	
+
 	/**
-	 * Gets the random initial sudoku.
+	 * Gets the deduplicator.
 	 *
-	 * @return the random initial sudoku
+	 * @return the deduplicator, or null
 	 */
-	public Sudoku getRandomInitialSudoku() {
-		Sudoku sudoku = getUncheckedInitialSudoku();
-		
-		while (true) {			
-			SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(sudoku));
-			solver.setMaxSolutions(1);
-			int solutions;
-			try {
-				solutions = solver.solve();
-			} catch (TimeoutException e) {
-				solutions = 0;
+	public PuzzleDeduplicator getDeduplicator() {
+		return deduplicator;
+	}
+
+	/**
+	 * Sets the deduplicator. Generated puzzles that it already contains, or
+	 * that are variants of puzzles it contains, are generated again. Variants
+	 * requested from {@link #generate(int, SudokuDifficulty, int)} are not
+	 * checked, and neither are seeded puzzles of
+	 * {@link #generate(long, SudokuDifficulty, long)}, which must stay the same
+	 * for the same address.
+	 *
+	 * @param deduplicator the deduplicator (null to allow duplicates)
+	 */
+	public void setDeduplicator(PuzzleDeduplicator deduplicator) {
+		this.deduplicator = deduplicator;
+	}
+
+	/**
+	 * Checks if a sudoku is unique and every clue is necessary. All removal
+	 * checks share one solver state, and clues that are singles of the other
+	 * clues end the check without any search.
+	 *
+	 * @param sudoku the sudoku
+	 * @return true, if minimal
+	 */
+	public static boolean isMinimal(Sudoku sudoku) {
+		return new UniquenessChecker(sudoku).isMinimal();
+	}
+
+	/**
+	 * Generate puzzles of several difficulties from one solution grid. The grid
+	 * is dug once up to the hardest difficulty. Each requested difficulty then
+	 * branches from the last intermediate state graded at that difficulty and
+	 * continues the same removal order with its own ceiling, so the removals
+	 * tried before the branch are not graded again. Difficulties no
+	 * intermediate state fits are missing from the result.
+	 *
+	 * @param difficulties the difficulties
+	 * @param random the random source
+	 * @return the sudokus by difficulty
+	 */
+	public Map<SudokuDifficulty, Sudoku> generateFromOneGrid(Set<SudokuDifficulty> difficulties, Random random) {
+		Map<SudokuDifficulty, Sudoku> result = new EnumMap<SudokuDifficulty, Sudoku>(SudokuDifficulty.class);
+		if (difficulties.isEmpty()) {
+			return result;
+		}
+		SudokuDifficulty ceiling = Collections.max(difficulties);
+		Sudoku solution = getRandomInitialSudoku(random);
+		int cells[] = shuffledClues(solution, random);
+		List<Integer> removed = new ArrayList<Integer>();
+		Map<SudokuDifficulty, Integer> reached = new EnumMap<SudokuDifficulty, Integer>(SudokuDifficulty.class);
+		Sudoku dug = dig(new Sudoku(solution), cells, 0, ceiling, 0, Long.MAX_VALUE, removed, reached);
+		int lastRemoval = removed.isEmpty() ? -1 : indexOf(cells, removed.get(removed.size() - 1));
+
+		for (SudokuDifficulty difficulty : difficulties) {
+			Integer position = reached.get(difficulty);
+			if (position == null) {
+				continue;
+			}
+			// the state after the removal at position: the cells tried so far that the dig removed
+			int grid[][] = toGrid(solution);
+			for (int i = 0; i <= position; i++) {
+				if (dug.getCellValue(cells[i] / 9, cells[i] % 9) == 0) {
+					grid[cells[i] / 9][cells[i] % 9] = 0;
+				}
+			}
+			// after the last removal every remaining cell was already rejected in this very state
+			int from = position == lastRemoval ? cells.length : position + 1;
+			Sudoku sudoku = digToDifficulty(new Sudoku(grid), cells, from, solution, difficulty, 0, 81, random,
+					Long.MAX_VALUE, new GenerationStats());
+			if (sudoku != null && isNew(sudoku)) {
+				result.put(difficulty, sudoku);
 			}
+		}
+		logger.debug("One grid gave " + result.keySet() + " of " + difficulties);
+		return result;
+	}
 
-			if (solutions >= 1) {;
-				return solver.getFirstSolution();
+	/**
+	 * Generate a mixed batch, reusing each solution grid for every difficulty
+	 * still missing.
+	 *
+	 * @param numberOfPuzzles the number of puzzles of each difficulty
+	 * @return the sudokus by difficulty
+	 */
+	public Map<SudokuDifficulty, List<Sudoku>> generate(Map<SudokuDifficulty, Integer> numberOfPuzzles) {
+		Map<SudokuDifficulty, List<Sudoku>> result =
+				new EnumMap<SudokuDifficulty, List<Sudoku>>(SudokuDifficulty.class);
+		Set<SudokuDifficulty> missing = EnumSet.noneOf(SudokuDifficulty.class);
+		for (Map.Entry<SudokuDifficulty, Integer> entry : numberOfPuzzles.entrySet()) {
+			result.put(entry.getKey(), new ArrayList<Sudoku>());
+			if (entry.getValue() > 0) {
+				missing.add(entry.getKey());
 			}
-			
-			if (solutions == 0) {
-				sudoku = getUncheckedInitialSudoku();
+		}
+		while (!missing.isEmpty()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Generating interrupted");
+            }
+			Random random = ThreadLocalRandom.current();
+			for (Map.Entry<SudokuDifficulty, Sudoku> entry : generateFromOneGrid(missing, random).entrySet()) {
+				List<Sudoku> sudokus = result.get(entry.getKey());
+				sudokus.add(entry.getValue());
+				if (sudokus.size() >= numberOfPuzzles.get(entry.getKey())) {
+					missing.remove(entry.getKey());
+				}
 			}
 		}
+		return result;
 	}
-	
+
 	/**
-	 * Gets the unchecked initial sudoku.
-	 *
-	 * @return the unchecked initial sudoku
-	 */
-	private Sudoku getUncheckedInitialSudoku() {
-		Sudoku sudoku = new Sudoku();
-		int clues = 0;
-		int value = 1;
-		
-		while (clues < 17) {
-			int row = random.nextInt(9);
-			int col = random.nextInt(9);
-			if (value > 9) {
-				value = 1;
-			}
-			
-			if (sudoku.isCellValuePossible(row, col, value)) {
-				sudoku.setCellValue(row, col, value);
-				clues++;
-				value++;
+	 * Dig a sudoku until it meets the difficulty. A dug sudoku that misses the
+	 * difficulty is not discarded at once, the most recent removals are put back
+	 * and the rest is dug again in another order.
+	 *
+	 * @param sudoku the sudoku to dig
+	 * @param cells the removal order of the first dig (row*9 + column)
+	 * @param from the position in the removal order to start at
+	 * @param solution the solution
+	 * @param difficulty the difficulty
+	 * @param minClues the clue count to stop digging at
+	 * @param maxClues the highest clue count accepted
+	 * @param random the random source
+	 * @param deadline the deadline (epoch milliseconds)
+	 * @param stats the statistics to update
+	 * @return the sudoku, or null if it does not meet the difficulty after all redigs or the deadline passed
+	 */
+	private Sudoku digToDifficulty(Sudoku sudoku, int[] cells, int from, Sudoku solution,
+			SudokuDifficulty difficulty, int minClues, int maxClues, Random random, long deadline,
+			GenerationStats stats) {
+		List<Integer> removed = new ArrayList<Integer>();
+		int redigs = 0;
+		for (int attempt = 0; attempt <= MAX_REDIGS; attempt++) {
+			redigs = attempt;
+			if (attempt > 0) {
+				cells = shuffledClues(sudoku, random);
+				from = 0;
+			}
+			stats.addDig(attempt > 0);
+			sudoku = dig(sudoku, cells, from, difficulty, minClues, deadline, removed, null);
+			if (System.currentTimeMillis() >= deadline) {
+				return null;
+			}
+			SudokuHumanSolver humanSolver = null;
+			if (sudoku.getClueCount() > maxClues) {
+				stats.addClueReject();
 			} else {
+				humanSolver = grade(sudoku, difficulty, stats);
+			}
+			if (humanSolver != null) {
+				sudoku.setSolution(solution);
+				sudoku.setRating(humanSolver.getRating());
+				return sudoku;
+			}
+			if (removed.isEmpty()) {
+				break;
+			}
+			sudoku = restore(sudoku, solution, removed, BACKTRACK_REMOVALS);
+		}
+		logger.debug("Grid discarded after " + redigs + " redigs");
+		return null;
+	}
+
+	/**
+	 * Remove clues in the given order, keeping only removals that leave the
+	 * puzzle uniquely solvable within the difficulty. Uniqueness is checked
+	 * first, so only unique candidates pay for grading.
+	 *
+	 * @param sudoku the sudoku
+	 * @param cells the removal order (row*9 + column)
+	 * @param from the position in the removal order to start at
+	 * @param difficulty the difficulty
+	 * @param minClues the clue count to stop at
+	 * @param deadline the deadline to stop at (epoch milliseconds)
+	 * @param removed the removed cells, appended in removal order
+	 * @param reached the position of the last removal graded at each difficulty (null to skip)
+	 * @return the dug sudoku
+	 */
+	private Sudoku dig(Sudoku sudoku, int[] cells, int from, SudokuDifficulty difficulty, int minClues,
+			long deadline, List<Integer> removed, Map<SudokuDifficulty, Integer> reached) {
+		UniquenessChecker checker = new UniquenessChecker(sudoku);
+		int clues = sudoku.getClueCount();
+		for (int i = from; i < cells.length && clues > minClues; i++) {
+			if (deadline != Long.MAX_VALUE && System.currentTimeMillis() >= deadline) {
+				break;
+			}
+			int cell = cells[i];
+			// a removal that loses uniqueness would only fail the whole solve below
+			if (!checker.isUniqueWithout(cell)) {
 				continue;
 			}
+			Sudoku lastSudoku = new Sudoku(sudoku);
+
+			sudoku.setCellValue(cell / 9, cell % 9, 0);
+			sudoku = new Sudoku(sudoku);
+
+			SudokuHumanSolver humanSolver = new SudokuHumanSolver(new Sudoku(sudoku), difficulty);
+			// removals that push the puzzle past the difficulty are rejected early
+			humanSolver.setTargetDifficulty(difficulty);
+
+			try {
+				int solutions = humanSolver.solve();
+
+				if (solutions != 1) {
+					sudoku = lastSudoku;
+				} else {
+					removed.add(cell);
+					checker.remove(cell);
+					clues--;
+					if (reached != null) {
+						for (SudokuDifficulty grade : SudokuDifficulty.values()) {
+							if (humanSolver.meetsDifficulty(grade)) {
+								reached.put(grade, i);
+								break;
+							}
+						}
+					}
+				}
+			} catch (TimeoutException e) {
+				sudoku = lastSudoku;
+			} catch (SolvingException e) {
+				sudoku = lastSudoku;
+			}
 		}
-		
+		logger.debug("Uniqueness checks: " + checker.getFastPathCount() + " singles, "
+				+ checker.getSearchCount() + " searches");
 		return sudoku;
 	}
-} 
+
+	/**
+	 * Get the filled cells in random order.
+	 *
+	 * @param sudoku the sudoku
+	 * @param random the random source
+	 * @return the cells (row*9 + column)
+	 */
+	private static int[] shuffledClues(Sudoku sudoku, Random random) {
+		int cells[] = new int[sudoku.getClueCount()];
+		int count = 0;
+		for (int cell = 0; cell < 81; cell++) {
+			if (sudoku.getCellValue(cell / 9, cell % 9) != 0) {
+				cells[count++] = cell;
+			}
+		}
+		CommonUtil.shuffleArray(cells, random);
+		return cells;
+	}
+
+	/**
+	 * Find a cell in a removal order.
+	 *
+	 * @param cells the cells
+	 * @param cell the cell
+	 * @return the position, or -1
+	 */
+	private static int indexOf(int[] cells, int cell) {
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] == cell) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Copy cell values to an array.
+	 *
+	 * @param sudoku the sudoku
+	 * @return the grid
+	 */
+	private static int[][] toGrid(Sudoku sudoku) {
+		int grid[][] = new int[9][9];
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				grid[row][col] = sudoku.getCellValue(row, col);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Grade a dug sudoku.
+	 *
+	 * @param sudoku the sudoku
+	 * @param difficulty the difficulty
+	 * @param stats the statistics to update
+	 * @return the human solver if the sudoku is unique and meets the difficulty, null otherwise
+	 */
+	private SudokuHumanSolver grade(Sudoku sudoku, SudokuDifficulty difficulty, GenerationStats stats) {
+        // skip grading of puzzles that certainly can not reach the difficulty
+        DifficultyFeatures features = new DifficultyFeatures(sudoku);
+        if (!features.canReach(difficulty)) {
+            logger.debug("Rejected by features: " + features);
+            stats.addFeatureReject();
+            return null;
+        }
+
+        SudokuHumanSolver humanSolver = new SudokuHumanSolver(new Sudoku(sudoku), difficulty);
+        SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(sudoku));
+		solver.setMaxSolutions(2);
+
+        try {
+            if (solver.solve() > 1) {
+                stats.addUniquenessReject();
+            	return null;
+            }
+            // uniqueness is verified, so uniqueness techniques are sound
+            humanSolver.setAssumeUnique(true);
+            humanSolver.setTargetDifficulty(difficulty);
+            humanSolver.solve();
+        } catch (Exception e) {
+		    // do nothing
+        }
+
+        if (humanSolver.meetsDifficulty(difficulty)) {
+            return humanSolver;
+        }
+        stats.addGradeReject();
+        return null;
+	}
+
+	/**
+	 * Put back the most recently removed clues.
+	 *
+	 * @param sudoku the sudoku
+	 * @param solution the solution
+	 * @param removed the removed cells in removal order (restored cells are dropped)
+	 * @param count the number of clues to put back
+	 * @return the sudoku with the clues put back
+	 */
+	private Sudoku restore(Sudoku sudoku, Sudoku solution, List<Integer> removed, int count) {
+		int grid[][] = toGrid(sudoku);
+		for (int i = 0; i < count && !removed.isEmpty(); i++) {
+			int cell = removed.remove(removed.size() - 1);
+			grid[cell / 9][cell % 9] = solution.getCellValue(cell / 9, cell % 9);
+		}
+		return new Sudoku(grid);
+	}
+	
+	/**
+	 * Gets the random initial sudoku.
+	 *
+	 * @return the random initial sudoku
+	 */
+	public Sudoku getRandomInitialSudoku() {
+		return getRandomInitialSudoku(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Gets the random initial sudoku (a random solution grid) with a given random source.
+	 *
+	 * @param random the random source
+	 * @return the random initial sudoku
+	 */
+	public Sudoku getRandomInitialSudoku(Random random) {
+		return new FullGridGenerator().generate(random);
+	}
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.util.PeerUtil;
+
+/**
+ * Uniqueness check for digging a puzzle whose current clues have exactly one
+ * solution. Removing the clue v from a cell keeps the puzzle unique exactly
+ * when no solution has another value than v in that cell, so only such a
+ * counterexample is searched for. When v is a naked or hidden single of the
+ * remaining clues, no search is needed at all.
+ *
+ * The clue masks of rows, columns and grids are updated as clues are
+ * removed, so each check starts from the state of the previous one. The same
+ * state is shared by all clue checks of {@link #isMinimal()}.
+ *
+ * Not thread safe.
+ *
+ * @author Martin Furek
+ */
+public class UniquenessChecker {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** Mask of all values. */
+    private static final int ALL = (1 << N) - 1;
+
+    /** Cell values (0 for empty). */
+    private int[] values = new int[N * N];
+
+    /** Values used in each row. */
+    private int[] rowMasks = new int[N];
+
+    /** Values used in each column. */
+    private int[] colMasks = new int[N];
+
+    /** Values used in each grid. */
+    private int[] gridMasks = new int[N];
+
+    /** Number of checks decided without a search. */
+    private int fastPathCount = 0;
+
+    /** Number of checks that needed a search. */
+    private int searchCount = 0;
+
+    /**
+     * Instantiates a new uniqueness checker from the clues of a sudoku. Removal
+     * checks expect the clues to have a unique solution.
+     *
+     * @param sudoku the sudoku
+     */
+    public UniquenessChecker(Sudoku sudoku) {
+        for (int cell = 0; cell < N * N; cell++) {
+            int value = sudoku.getCellValue(cell / N, cell % N);
+            if (value != 0) {
+                place(cell, value);
+            }
+        }
+    }
+
+    /**
+     * Checks if the uniquely solvable puzzle stays unique without the clue of
+     * a cell. The clue is kept.
+     *
+     * @param cell the cell (row*N + column)
+     * @return true, if unique
+     */
+    public boolean isUniqueWithout(int cell) {
+        if (values[cell] == 0) {
+            throw new IllegalArgumentException("Incorrect cell (" + cell + ") without clue");
+        }
+        if (isSingleWithout(cell)) {
+            fastPathCount++;
+            return true;
+        }
+        searchCount++;
+        return !hasCounterexample(cell);
+    }
+
+    /**
+     * Checks if the clues have exactly one solution.
+     *
+     * @return true, if unique
+     */
+    public boolean isUnique() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * Checks if the puzzle is unique and every clue is necessary. All clues
+     * are first checked for being singles of the others, which is enough to
+     * find most redundant clues, and only then searched one by one.
+     *
+     * @return true, if minimal
+     */
+    public boolean isMinimal() {
+        if (!isUnique()) {
+            return false;
+        }
+        for (int cell = 0; cell < N * N; cell++) {
+            if (values[cell] != 0 && isSingleWithout(cell)) {
+                fastPathCount++;
+                return false;
+            }
+        }
+        for (int cell = 0; cell < N * N; cell++) {
+            if (values[cell] != 0) {
+                searchCount++;
+                if (!hasCounterexample(cell)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the clue of a cell.
+     *
+     * @param cell the cell (row*N + column)
+     */
+    public void remove(int cell) {
+        if (values[cell] != 0) {
+            unplace(cell);
+        }
+    }
+
+    /**
+     * Gets the number of checks decided without a search.
+     *
+     * @return the fast path count
+     */
+    public int getFastPathCount() {
+        return fastPathCount;
+    }
+
+    /**
+     * Gets the number of checks that needed a search.
+     *
+     * @return the search count
+     */
+    public int getSearchCount() {
+        return searchCount;
+    }
+
+    /**
+     * Check if the clue of a cell is a naked or hidden single of the other clues.
+     *
+     * @param cell the cell
+     * @return true, if the clue is forced
+     */
+    private boolean isSingleWithout(int cell) {
+        int value = values[cell];
+        int bit = 1 << (value - 1);
+        unplace(cell);
+        try {
+            if (getCandidates(cell) == bit) {
+                return true;
+            }
+            for (int unit : PeerUtil.getCellUnits(cell)) {
+                boolean hidden = true;
+                for (int other : PeerUtil.getUnitCells(unit)) {
+                    if (other != cell && values[other] == 0 && (getCandidates(other) & bit) != 0) {
+                        hidden = false;
+                        break;
+                    }
+                }
+                if (hidden) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            place(cell, value);
+        }
+    }
+
+    /**
+     * Check if the other clues have a solution with another value in a cell.
+     *
+     * @param cell the cell
+     * @return true, if found
+     */
+    private boolean hasCounterexample(int cell) {
+        int value = values[cell];
+        unplace(cell);
+        try {
+            return search(cell, 1 << (value - 1));
+        } finally {
+            place(cell, value);
+        }
+    }
+
+    /**
+     * Count solutions of the clues up to a limit.
+     *
+     * @param limit the limit
+     * @return the number of solutions (at most limit)
+     */
+    private int countSolutions(int limit) {
+        int best = -1;
+        int bestCandidates = 0;
+        int bestCount = N + 1;
+        for (int cell = 0; cell < N * N; cell++) {
+            if (values[cell] != 0) {
+                continue;
+            }
+            int candidates = getCandidates(cell);
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                if (count == 0) {
+                    return 0;
+                }
+                best = cell;
+                bestCandidates = candidates;
+                bestCount = count;
+                if (count == 1) {
+                    break;
+                }
+            }
+        }
+        if (best < 0) {
+            return 1;
+        }
+        int solutions = 0;
+        for (int rest = bestCandidates; rest != 0 && solutions < limit; rest &= rest - 1) {
+            place(best, Integer.numberOfTrailingZeros(rest) + 1);
+            solutions += countSolutions(limit - solutions);
+            unplace(best);
+        }
+        return solutions;
+    }
+
+    /**
+     * Search for a solution of the clues with the value excluded from the cell.
+     *
+     * @param excludedCell the cell
+     * @param excludedBit the excluded value bit
+     * @return true, if found
+     */
+    private boolean search(int excludedCell, int excludedBit) {
+        int best = -1;
+        int bestCandidates = 0;
+        int bestCount = N + 1;
+        for (int cell = 0; cell < N * N; cell++) {
+            if (values[cell] != 0) {
+                continue;
+            }
+            int candidates = getCandidates(cell);
+            if (cell == excludedCell) {
+                candidates &= ~excludedBit;
+            }
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                if (count == 0) {
+                    return false;
+                }
+                best = cell;
+                bestCandidates = candidates;
+                bestCount = count;
+                if (count == 1) {
+                    break;
+                }
+            }
+        }
+        if (best < 0) {
+            return true;
+        }
+        for (int rest = bestCandidates; rest != 0; rest &= rest - 1) {
+            place(best, Integer.numberOfTrailingZeros(rest) + 1);
+            boolean found = search(excludedCell, excludedBit);
+            unplace(best);
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the values not used by the clues in the units of a cell.
+     *
+     * @param cell the cell
+     * @return the candidate mask
+     */
+    private int getCandidates(int cell) {
+        int row = cell / N;
+        int col = cell % N;
+        return ~(rowMasks[row] | colMasks[col] | gridMasks[row / 3 * 3 + col / 3]) & ALL;
+    }
+
+    /**
+     * Place a value.
+     *
+     * @param cell the cell
+     * @param value the value
+     */
+    private void place(int cell, int value) {
+        int row = cell / N;
+        int col = cell % N;
+        int bit = 1 << (value - 1);
+        values[cell] = value;
+        rowMasks[row] |= bit;
+        colMasks[col] |= bit;
+        gridMasks[row / 3 * 3 + col / 3] |= bit;
+    }
+
+    /**
+     * Remove a value.
+     *
+     * @param cell the cell
+     */
+    private void unplace(int cell) {
+        int row = cell / N;
+        int col = cell % N;
+        int bit = 1 << (values[cell] - 1);
+        values[cell] = 0;
+        rowMasks[row] &= ~bit;
+        colMasks[col] &= ~bit;
+        gridMasks[row / 3 * 3 + col / 3] &= ~bit;
+    }
+}
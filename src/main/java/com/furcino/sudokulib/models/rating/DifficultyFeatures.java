@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.rating;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.solvers.SudokuHumanSolver;
+import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
+import com.furcino.sudokulib.models.solvers.exceptions.TimeoutException;
+
+/**
+ * Cheap features of a puzzle used to reject candidates that can not reach a
+ * difficulty before the full grading (uniqueness check and human solve with
+ * all techniques).
+ *
+ * Rejections are exact with respect to the acceptance rules
+ * (SudokuHumanSolver.meetsDifficulty): a puzzle solved by singles can only
+ * be easy or normal, depending on the number of basic solves, and a puzzle
+ * solved by singles and locked candidates can not be very hard or extreme.
+ *
+ * @author Martin Furek
+ */
+public class DifficultyFeatures {
+
+    /** The Constant logger. */
+    final static Logger logger = Logger.getLogger(DifficultyFeatures.class);
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** The sudoku. */
+    private Sudoku sudoku;
+
+    /** Number of clues. */
+    private int clueCount;
+
+    /** Number of candidates of empty cells after basic propagation of the clues. */
+    private int candidateCount;
+
+    /** Number of bivalue cells after basic propagation of the clues. */
+    private int bivalueCount;
+
+    /** Number of basic solves of a singles-only solve. */
+    private int singlesSolves;
+
+    /** Whether singles solve the puzzle. */
+    private boolean singlesSolved;
+
+    /** Whether singles and locked candidates solve the puzzle (null until needed). */
+    private Boolean lockedSolved;
+
+    /**
+     * Computes the features of a puzzle.
+     *
+     * @param sudoku the sudoku
+     */
+    public DifficultyFeatures(Sudoku sudoku) {
+        this.sudoku = sudoku;
+        this.clueCount = sudoku.getClueCount();
+        this.bivalueCount = sudoku.getBivalueCellCount();
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                if (sudoku.getCellValue(row, col) == 0) {
+                    this.candidateCount += sudoku.getCandidateCount(row, col);
+                }
+            }
+        }
+
+        SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EASY);
+        solver.setSolvePath(null);
+        this.singlesSolved = solve(solver);
+        this.singlesSolves = solver.getBasicSolves();
+    }
+
+    /**
+     * Checks if the puzzle can still reach a difficulty. False means it
+     * certainly can not, true means full grading is needed.
+     *
+     * @param difficulty the difficulty
+     * @return true, if the difficulty can be reached
+     */
+    public boolean canReach(SudokuDifficulty difficulty) {
+        switch (difficulty) {
+            case EASY:
+                return singlesSolved && singlesSolves <= SudokuHumanSolver.EASY_MAX_BASIC_SOLVES;
+            case NORMAL:
+                return singlesSolved && singlesSolves > SudokuHumanSolver.EASY_MAX_BASIC_SOLVES;
+            case HARD:
+                return !singlesSolved;
+            default:
+                return !singlesSolved && !isLockedSolved();
+        }
+    }
+
+    /**
+     * Checks if singles and locked candidates solve the puzzle (solved on first call).
+     *
+     * @return true, if solved
+     */
+    public boolean isLockedSolved() {
+        if (lockedSolved == null) {
+            if (singlesSolved) {
+                lockedSolved = true;
+            } else {
+                SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.HARD);
+                solver.setSolvePath(null);
+                lockedSolved = solve(solver);
+            }
+        }
+        return lockedSolved;
+    }
+
+    /**
+     * Solve and report if the puzzle got solved.
+     *
+     * @param solver the solver
+     * @return true, if solved
+     */
+    private boolean solve(SudokuHumanSolver solver) {
+        try {
+            return solver.solve() == 1;
+        } catch (TimeoutException e) {
+            logger.debug("Feature solve timed out");
+        } catch (SolvingException e) {
+            logger.debug("Feature solve failed");
+        }
+        return false;
+    }
+
+    /**
+     * Gets the clue count.
+     *
+     * @return the clue count
+     */
+    public int getClueCount() {
+        return clueCount;
+    }
+
+    /**
+     * Gets the candidate count of empty cells.
+     *
+     * @return the candidate count
+     */
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * Gets the bivalue cell count.
+     *
+     * @return the bivalue cell count
+     */
+    public int getBivalueCount() {
+        return bivalueCount;
+    }
+
+    /**
+     * Gets the number of basic solves of the singles-only solve.
+     *
+     * @return the singles solves
+     */
+    public int getSinglesSolves() {
+        return singlesSolves;
+    }
+
+    /**
+     * Checks if singles solve the puzzle.
+     *
+     * @return true, if solved
+     */
+    public boolean isSinglesSolved() {
+        return singlesSolved;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "DifficultyFeatures [clues=" + clueCount + ", candidates=" + candidateCount + ", bivalues="
+                + bivalueCount + ", singlesSolves=" + singlesSolves + ", singlesSolved=" + singlesSolved + "]";
+    }
+}
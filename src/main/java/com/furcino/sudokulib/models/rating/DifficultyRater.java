@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.rating;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.solvers.SudokuHumanSolver;
+import com.furcino.sudokulib.models.solvers.SudokuPossibilityBasedSolver;
+import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
+import com.furcino.sudokulib.models.solvers.exceptions.TimeoutException;
+
+/**
+ * Rates any puzzle with the same rules SudokuFactory uses to accept puzzles.
+ *
+ * Uniqueness is checked first (uniqueness techniques are only sound for
+ * unique puzzles), then a single human solve with all techniques is done.
+ * Techniques are always tried from the lowest tier, so the counters of that
+ * solve are the same as the counters of a solve limited to the resulting
+ * difficulty, and the lowest difficulty they meet is the rating.
+ *
+ * @author Martin Furek
+ */
+public class DifficultyRater {
+
+    /** The Constant logger. */
+    final static Logger logger = Logger.getLogger(DifficultyRater.class);
+
+    /** Number of threads used by rateAll. */
+    private int parallelism;
+
+    /** Whether uniqueness is checked before rating. */
+    private boolean checkUniqueness = true;
+
+    /** Time limit of a single solve in ms. */
+    private long timeLimit = 10000;
+
+    /**
+     * Instantiates a new difficulty rater using all available processors.
+     */
+    public DifficultyRater() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiates a new difficulty rater.
+     *
+     * @param parallelism the number of threads used by rateAll
+     */
+    public DifficultyRater(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Incorrect parallelism (" + parallelism + ")");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Rate a puzzle. Puzzles with more solutions, or that can not be solved
+     * by human techniques within the time limit, get no difficulty.
+     *
+     * @param sudoku the sudoku
+     * @return the rating
+     */
+    public DifficultyRating rate(Sudoku sudoku) {
+        if (checkUniqueness) {
+            SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(sudoku));
+            solver.setMaxSolutions(2);
+            solver.setTimeLimit(timeLimit);
+            try {
+                if (solver.solve() != 1) {
+                    return new DifficultyRating(null, 0, false);
+                }
+            } catch (TimeoutException e) {
+                logger.debug("Uniqueness check timed out: " + sudoku.getStringRepresentation());
+                return new DifficultyRating(null, 0, false);
+            }
+        }
+
+        SudokuHumanSolver humanSolver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EXTREME);
+        humanSolver.setAssumeUnique(checkUniqueness);
+        humanSolver.setTimeLimit(timeLimit);
+        try {
+            humanSolver.solve();
+        } catch (TimeoutException e) {
+            logger.debug("Human solve timed out: " + sudoku.getStringRepresentation());
+            return new DifficultyRating(null, humanSolver.getRating(), checkUniqueness);
+        } catch (SolvingException e) {
+            logger.debug("Human solve failed: " + sudoku.getStringRepresentation());
+            return new DifficultyRating(null, humanSolver.getRating(), checkUniqueness);
+        }
+
+        for (SudokuDifficulty difficulty : SudokuDifficulty.values()) {
+            if (humanSolver.meetsDifficulty(difficulty)) {
+                return new DifficultyRating(difficulty, humanSolver.getRating(), checkUniqueness);
+            }
+        }
+        return new DifficultyRating(null, humanSolver.getRating(), checkUniqueness);
+    }
+
+    /**
+     * Rate puzzles in parallel. Ratings are in the iteration order of the collection.
+     *
+     * @param sudokus the sudokus
+     * @return the ratings
+     */
+    public List<DifficultyRating> rateAll(Collection<Sudoku> sudokus) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> sudokus.parallelStream().map(this::rate).collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rating interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rating failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Gets the number of threads used by rateAll.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Checks if uniqueness is checked before rating.
+     *
+     * @return true, if uniqueness is checked
+     */
+    public boolean isCheckUniqueness() {
+        return checkUniqueness;
+    }
+
+    /**
+     * Sets if uniqueness is checked before rating. Without the check
+     * uniqueness techniques are not used.
+     *
+     * @param checkUniqueness true, if uniqueness is checked
+     */
+    public void setCheckUniqueness(boolean checkUniqueness) {
+        this.checkUniqueness = checkUniqueness;
+    }
+
+    /**
+     * Gets the time limit of a single solve.
+     *
+     * @return the time limit in ms
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Sets the time limit of a single solve.
+     *
+     * @param timeLimit the time limit in ms
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+}
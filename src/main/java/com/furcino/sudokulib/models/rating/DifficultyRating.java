@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.rating;
+
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+/**
+ * Result of rating a puzzle.
+ *
+ * @author Martin Furek
+ */
+public class DifficultyRating {
+
+    /** The difficulty (null if the puzzle is not unique or not solvable by human techniques). */
+    private SudokuDifficulty difficulty;
+
+    /** The numeric score (see SolvePath). */
+    private double score;
+
+    /** Whether the puzzle has a unique solution. */
+    private boolean unique;
+
+    /**
+     * Instantiates a new difficulty rating.
+     *
+     * @param difficulty the difficulty
+     * @param score the score
+     * @param unique true, if the puzzle has a unique solution
+     */
+    public DifficultyRating(SudokuDifficulty difficulty, double score, boolean unique) {
+        this.difficulty = difficulty;
+        this.score = score;
+        this.unique = unique;
+    }
+
+    /**
+     * Gets the difficulty.
+     *
+     * @return the difficulty (null if not rated)
+     */
+    public SudokuDifficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Gets the numeric score.
+     *
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Checks if the puzzle has a unique solution.
+     *
+     * @return true, if unique
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Checks if the puzzle got a difficulty.
+     *
+     * @return true, if rated
+     */
+    public boolean isRated() {
+        return difficulty != null;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "DifficultyRating [difficulty=" + difficulty + ", score=" + score + ", unique=" + unique + "]";
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import com.furcino.sudokulib.util.PeerUtil;
+
+/**
+ * The Class AlmostLockedSet holds n unsolved cells of one unit which have
+ * together n+1 possible values. Cell sets are bit sets of two longs
+ * (cells 0-63 and 64-80).
+ *
+ * @author Martin Furek
+ */
+public class AlmostLockedSet {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** The unit (0-26). */
+    private int unit;
+
+    /** The cells (row*9 + column). */
+    private int[] cells;
+
+    /** The possible values as a bit mask where bit (value-1) is set when value is possible. */
+    private int mask;
+
+    /** Round of the cache the set was enumerated in. */
+    private int round;
+
+    /** Cells as a bit set. */
+    private long[] cellSet = new long[2];
+
+    /** Cells where a value is possible (index (value-1)*2). */
+    private long[] valueCells = new long[N * 2];
+
+    /** Cells seeing all cells where a value is possible (index (value-1)*2). */
+    private long[] valuePeers = new long[N * 2];
+
+    /**
+     * Instantiates a new almost locked set.
+     *
+     * @param unit the unit
+     * @param cells the cells
+     * @param cellMasks the possible values of each cell
+     * @param round the round of the cache
+     */
+    public AlmostLockedSet(int unit, int[] cells, int[] cellMasks, int round) {
+        this.unit = unit;
+        this.round = round;
+        this.cells = cells;
+        for (int k = 0; k < N * 2; k++) {
+            this.valuePeers[k] = -1L;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            long[] peers = PeerUtil.getPeerMask(cell);
+            this.mask |= cellMasks[i];
+            this.cellSet[cell >> 6] |= 1L << (cell & 63);
+            for (int rest = cellMasks[i]; rest != 0; rest &= rest - 1) {
+                int k = Integer.numberOfTrailingZeros(rest);
+                this.valueCells[k * 2 + (cell >> 6)] |= 1L << (cell & 63);
+                this.valuePeers[k * 2] &= peers[0];
+                this.valuePeers[k * 2 + 1] &= peers[1];
+            }
+        }
+    }
+
+    /**
+     * Check if a cell belongs to the set.
+     *
+     * @param cell the cell
+     * @return true, if cell is in the set
+     */
+    public boolean contains(int cell) {
+        return (cellSet[cell >> 6] & (1L << (cell & 63))) != 0;
+    }
+
+    /**
+     * Check if two sets share a cell.
+     *
+     * @param other the other set
+     * @return true, if sets overlap
+     */
+    public boolean overlaps(AlmostLockedSet other) {
+        return (cellSet[0] & other.cellSet[0]) != 0 || (cellSet[1] & other.cellSet[1]) != 0;
+    }
+
+    /**
+     * Check if a value is a restricted common value of two sets not sharing
+     * a cell, which is when every cell of one set with the value sees every
+     * cell of the other set with the value (only one set can hold it).
+     *
+     * @param other the other set
+     * @param value the value
+     * @return true, if value is restricted common
+     */
+    public boolean isRestrictedCommon(AlmostLockedSet other, int value) {
+        int k = (value - 1) * 2;
+        if ((mask & other.mask & (1 << (value - 1))) == 0) {
+            return false;
+        }
+        return (other.valueCells[k] & ~valuePeers[k]) == 0 && (other.valueCells[k + 1] & ~valuePeers[k + 1]) == 0;
+    }
+
+    /**
+     * Gets the restricted common values of two sets not sharing a cell as a bit mask.
+     *
+     * @param other the other set
+     * @return the restricted common values
+     */
+    public int getRestrictedCommons(AlmostLockedSet other) {
+        int commons = 0;
+        for (int rest = mask & other.mask; rest != 0; rest &= rest - 1) {
+            int value = Integer.numberOfTrailingZeros(rest) + 1;
+            if (isRestrictedCommon(other, value)) {
+                commons |= 1 << (value - 1);
+            }
+        }
+        return commons;
+    }
+
+    /**
+     * Check if a cell sees every cell of the set where a value is possible.
+     *
+     * @param value the value
+     * @param cell the cell
+     * @return true, if the cell sees all of them
+     */
+    public boolean seesAll(int value, int cell) {
+        return (valuePeers[(value - 1) * 2 + (cell >> 6)] & (1L << (cell & 63))) != 0;
+    }
+
+    /**
+     * Gets the unit.
+     *
+     * @return the unit
+     */
+    public int getUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets the cells.
+     *
+     * @return the cells
+     */
+    public int[] getCells() {
+        return cells;
+    }
+
+    /**
+     * Gets the round of the cache the set was enumerated in.
+     *
+     * @return the round
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Gets the possible values as a bit mask.
+     *
+     * @return the mask
+     */
+    public int getMask() {
+        return mask;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.util.PeerUtil;
+
+/**
+ * The Class AlmostLockedSetCache holds almost locked sets of a sudoku per unit.
+ *
+ * Sets of a unit are enumerated from candidate masks of its cells and only
+ * enumerated again when the unit version of the sudoku changed. Every set
+ * knows the round it was enumerated in, so techniques can skip combinations
+ * of sets they already examined in an earlier round. Grid subsets
+ * lying in a single row or column are left to that row or column.
+ *
+ * @author Martin Furek
+ */
+public class AlmostLockedSetCache {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** The sudoku. */
+    private Sudoku sudoku;
+
+    /** Unit versions the sets of a unit were enumerated from. */
+    private int[] unitVersions = new int[PeerUtil.UNITS];
+
+    /** Almost locked sets of each unit. */
+    private List<List<AlmostLockedSet>> unitSets = new ArrayList<List<AlmostLockedSet>>();
+
+    /** Almost locked sets of all units. */
+    private List<AlmostLockedSet> sets = null;
+
+    /** Current round, increased whenever a unit gets enumerated again. */
+    private int round = 0;
+
+    /** Values of subsets of unsolved cells of a unit being enumerated. */
+    private int[] subsetMasks = new int[1 << N];
+
+    /** Number of unit enumerations. */
+    private long enumerations = 0;
+
+    /**
+     * Instantiates a new almost locked set cache.
+     *
+     * @param sudoku the sudoku
+     */
+    public AlmostLockedSetCache(Sudoku sudoku) {
+        this.sudoku = sudoku;
+        for (int unit = 0; unit < PeerUtil.UNITS; unit++) {
+            this.unitSets.add(null);
+        }
+    }
+
+    /**
+     * Gets the almost locked sets of all units.
+     *
+     * @return the almost locked sets
+     */
+    public List<AlmostLockedSet> getAlmostLockedSets() {
+        boolean changed = false;
+        for (int unit = 0; unit < PeerUtil.UNITS; unit++) {
+            if (unitSets.get(unit) == null || unitVersions[unit] != sudoku.getUnitVersion(unit)) {
+                if (!changed) {
+                    round++;
+                }
+                unitSets.set(unit, enumerate(unit));
+                unitVersions[unit] = sudoku.getUnitVersion(unit);
+                changed = true;
+            }
+        }
+        if (changed || sets == null) {
+            sets = new ArrayList<AlmostLockedSet>();
+            for (List<AlmostLockedSet> unitList : unitSets) {
+                sets.addAll(unitList);
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * Enumerate almost locked sets of a unit.
+     *
+     * @param unit the unit
+     * @return the almost locked sets
+     */
+    private List<AlmostLockedSet> enumerate(int unit) {
+        enumerations++;
+        List<AlmostLockedSet> result = new ArrayList<AlmostLockedSet>();
+        int[] unitCells = PeerUtil.getUnitCells(unit);
+        int[] cells = new int[N];
+        int[] masks = new int[N];
+        int count = 0;
+        for (int cell : unitCells) {
+            if (sudoku.getCellValue(cell / N, cell % N) == 0) {
+                cells[count] = cell;
+                masks[count] = sudoku.getCandidateMask(cell / N, cell % N);
+                count++;
+            }
+        }
+
+        // a subset of all unsolved cells can not have one extra value,
+        // values of a subset are values of the subset without its lowest cell
+        // plus values of that cell
+        for (int subset = 1; subset < (1 << count) - 1; subset++) {
+            int size = Integer.bitCount(subset);
+            int mask = subsetMasks[subset & (subset - 1)] | masks[Integer.numberOfTrailingZeros(subset)];
+            subsetMasks[subset] = mask;
+            if (Integer.bitCount(mask) != size + 1) {
+                continue;
+            }
+            int[] setCells = new int[size];
+            int[] setMasks = new int[size];
+            int index = 0;
+            int rows = 0;
+            int cols = 0;
+            for (int rest = subset; rest != 0; rest &= rest - 1) {
+                int i = Integer.numberOfTrailingZeros(rest);
+                setCells[index] = cells[i];
+                setMasks[index] = masks[i];
+                rows |= 1 << (cells[i] / N);
+                cols |= 1 << (cells[i] % N);
+                index++;
+            }
+            if (unit >= 2 * N && (Integer.bitCount(rows) == 1 || Integer.bitCount(cols) == 1)) {
+                continue;
+            }
+            result.add(new AlmostLockedSet(unit, setCells, setMasks, round));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the current round, sets enumerated later have a higher round.
+     *
+     * @return the round
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Gets the number of unit enumerations.
+     *
+     * @return the enumerations
+     */
+    public long getEnumerations() {
+        return enumerations;
+    }
+
+    /**
+     * Gets the sudoku.
+     *
+     * @return the sudoku
+     */
+    public Sudoku getSudoku() {
+        return sudoku;
+    }
+}
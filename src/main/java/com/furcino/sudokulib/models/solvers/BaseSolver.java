@@ -15,14 +15,15 @@
 package com.furcino.sudokulib.models.solvers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.log4j.Logger;
 
-import com.furcino.sudokulib.models.Cell;
 import com.furcino.sudokulib.models.Sudoku;
 import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
 import com.furcino.sudokulib.models.solvers.exceptions.TimeoutException;
+import com.furcino.sudokulib.util.PeerUtil;
 
 /**
  * The Class BaseSolver.
@@ -58,6 +59,60 @@ public abstract class BaseSolver {
     /** The solutions. */
     protected List<Sudoku> solutions = new ArrayList<Sudoku>();
 
+    /** The strong link graph of the sudoku being solved. */
+    protected StrongLinkGraph strongLinkGraph;
+
+    /** The change tracker of the sudoku being solved. */
+    protected ChangeTracker changeTracker;
+
+    /** The almost locked sets of the sudoku being solved. */
+    protected AlmostLockedSetCache almostLockedSetCache;
+
+    /** Round of almost locked sets of the last ALS-XZ scan without result. */
+    private int alsXzRound = 0;
+
+    /** Round of almost locked sets of the last ALS-XY-Wing scan without result. */
+    private int alsXyWingRound = 0;
+
+    /** The implication graph of the sudoku being solved. */
+    protected ImplicationGraph implicationGraph;
+
+    /** The maximum number of links in a chain. */
+    protected int maxChainDepth = 12;
+
+    /** The step deductions are recorded to, techniques stop after the first deduction when set. */
+    protected SolvingStep step;
+
+    /** The solve path changes are recorded to (null when not recorded). */
+    protected SolvePath path;
+
+    /** Skyscraper (and X-Wing) technique for strong link pairs. */
+    private static final int SKYSCRAPER = 0;
+
+    /** 2-String Kite technique for strong link pairs. */
+    private static final int TWO_STRING_KITE = 1;
+
+    /** Turbot Fish technique for strong link pairs. */
+    private static final int TURBOT_FISH = 2;
+
+    /** Simple Coloring technique (change tracker channel). */
+    private static final int SIMPLE_COLORING = 3;
+
+    /** Basic technique (change tracker channel). */
+    private static final int BASIC = 4;
+
+    /** Grid locked candidates technique (change tracker channel). */
+    private static final int GRID_LOCKED = 5;
+
+    /** Row and column locked candidates technique (change tracker channel). */
+    private static final int LINE_LOCKED = 6;
+
+    /** Number of change tracker channels. */
+    private static final int CHANNELS = 7;
+
+    /** Names of strong link pair techniques used for logging. */
+    private static final String[] TECHNIQUE_NAMES = {"Skyscraper", "2-String Kite", "Turbot Fish"};
+
     /**
      * Instantiates a new base solver.
      *
@@ -101,14 +156,22 @@ public abstract class BaseSolver {
      */
     protected boolean solveBasic(Sudoku toSolve) throws SolvingException {
         int solvedCount = 0;
+        ChangeTracker tracker = getChangeTracker(toSolve);
 
         // check grid
         for (int gridRow = 0; gridRow < 3; gridRow++) {
             for (int gridCol = 0; gridCol < 3; gridCol++) {
+                if (!tracker.isUnitChanged(BASIC, 2 * N + gridRow * 3 + gridCol)) {
+                    continue;
+                }
                 for (int val = 1; val <= N; val++) {
                     if (!toSolve.isValueSolvedInGrid(gridRow, gridCol, val)) {
                         if (this.checkGridForSolutions(toSolve, gridRow, gridCol, val)) {
                             solvedCount++;
+                            if (isStepFound()) {
+                                tracker.forgetUnit(BASIC, 2 * N + gridRow * 3 + gridCol);
+                                return true;
+                            }
                         }
                     }
                 }
@@ -117,10 +180,17 @@ public abstract class BaseSolver {
 
         // check row
         for (int row = 0; row < N; row++) {
+            if (!tracker.isUnitChanged(BASIC, row)) {
+                continue;
+            }
             for (int val = 1; val <= N; val++) {
                 if (!toSolve.isValueSolvedInRow(row, val)) {
                     if (this.checkRowForSolutions(toSolve, row, val)) {
                         solvedCount++;
+                        if (isStepFound()) {
+                            tracker.forgetUnit(BASIC, row);
+                            return true;
+                        }
                     }
                 }
             }
@@ -128,10 +198,17 @@ public abstract class BaseSolver {
 
         // check col
         for (int col = 0; col < N; col++) {
+            if (!tracker.isUnitChanged(BASIC, N + col)) {
+                continue;
+            }
             for (int val = 1; val <= N; val++) {
                 if (!toSolve.isValueSolvedInCol(col, val)) {
                     if (this.checkColForSolutions(toSolve, col, val)) {
                         solvedCount++;
+                        if (isStepFound()) {
+                            tracker.forgetUnit(BASIC, N + col);
+                            return true;
+                        }
                     }
                 }
             }
@@ -185,6 +262,7 @@ public abstract class BaseSolver {
                 throw new SolvingException(this);
             } else {
                 logger.debug("Solved by Grid [" + setX + "][" + setY + "] with " + value);
+                recordPlacement(setX * N + setY, value);
                 toSolve.setCellValue(setX, setY, value);
             }
             return true;
@@ -230,6 +308,7 @@ public abstract class BaseSolver {
                 throw new SolvingException(this);
             } else {
                 logger.debug("Solved by Row [" + setX + "][" + setY + "] with " + value);
+                recordPlacement(setX * N + setY, value);
                 toSolve.setCellValue(setX, setY, value);
             }
             return true;
@@ -275,6 +354,7 @@ public abstract class BaseSolver {
                 throw new SolvingException(this);
             } else {
                 logger.debug("Solved by Col [" + setX + "][" + setY + "] with " + value);
+                recordPlacement(setX * N + setY, value);
                 toSolve.setCellValue(setX, setY, value);
             }
             return true;
@@ -291,12 +371,21 @@ public abstract class BaseSolver {
      */
     protected boolean solveGridLockedCandidates(Sudoku toSolve) {
         int solvedCount = 0;
+        ChangeTracker tracker = getChangeTracker(toSolve);
         for (int gridRow = 0; gridRow < 3; gridRow++) {
             for (int gridCol = 0; gridCol < 3; gridCol++) {
+                if (!tracker.isUnitChanged(GRID_LOCKED, 2 * N + gridRow * 3 + gridCol)) {
+                    continue;
+                }
                 for (int val = 1; val <= N; val++) {
                     if (!toSolve.isValueSolvedInGrid(gridRow, gridCol, val)) {
                         if (resolveGridLockedCandidates(toSolve, gridRow, gridCol, val)) {
                             solvedCount++;
+                            if (isStepFound()) {
+                                // a claim removes candidates outside the grid only, so the grid stays unchanged
+                                tracker.forgetUnit(GRID_LOCKED, 2 * N + gridRow * 3 + gridCol);
+                                return true;
+                            }
                         }
                     }
                 }
@@ -353,6 +442,7 @@ public abstract class BaseSolver {
                 for (int j = 0; j < N; j++) {
                     if ((j < gridCol * 3 || j >= gridCol * 3 + 3) && toSolve.isCellValuePossible(row[i], j, value)) {
                         toSolve.setCellValueAsImpossible(row[i], j, value);
+                        recordElimination(row[i] * N + j, value);
                         logger.debug("Removing row [" + row[i] + "][" + j + "] with " + value);
                         changes++;
                     }
@@ -380,8 +470,9 @@ public abstract class BaseSolver {
             if (i == possibilities - 2) {
                 int changes = 0;
                 for (int j = 0; j < N; j++) {
-                    if ((j < gridRow * 3 || j >= gridRow * 3 + 3) && this.sudoku.isCellValuePossible(j, col[i], value)) {
-                        this.sudoku.setCellValueAsImpossible(j, col[i], value);
+                    if ((j < gridRow * 3 || j >= gridRow * 3 + 3) && toSolve.isCellValuePossible(j, col[i], value)) {
+                        toSolve.setCellValueAsImpossible(j, col[i], value);
+                        recordElimination(j * N + col[i], value);
                         logger.debug("Removing col [" + j + "][" + col[i] + "] for " + value);
                         changes++;
                     }
@@ -391,7 +482,7 @@ public abstract class BaseSolver {
                         for (int check = 0; check < possibilities; check++) {
                             logger.debug("Based on col " + (check + 1) + "/" + possibilities + " [" + row[check] + "][" + col[check] + "] with " + value);
                         }
-                        logger.debug(this.sudoku.printPossibilities(value) + this.sudoku.toString());
+                        logger.debug(toSolve.printPossibilities(value) + toSolve.toString());
                     }
                     return true;
                 }
@@ -409,18 +500,31 @@ public abstract class BaseSolver {
      */
     protected boolean solveRowAndColLockedCandidates(Sudoku toSolve) {
         int solvedCount = 0;
+        ChangeTracker tracker = getChangeTracker(toSolve);
+        boolean[] changed = new boolean[2 * N];
+        for (int unit = 0; unit < 2 * N; unit++) {
+            changed[unit] = tracker.isUnitChanged(LINE_LOCKED, unit);
+        }
         for (int val = 1; val <= N; val++) {
 	        for (int row = 0; row < N; row++) {
-	        	if (!toSolve.isValueSolvedInRow(row, val)) {
+	        	if (changed[row] && !toSolve.isValueSolvedInRow(row, val)) {
 		        	if (resolveRowLockedCandidates(toSolve, row, val)) {
 		        		solvedCount++;
+		        		if (isStepFound()) {
+		        			forgetLines(tracker, changed);
+		        			return true;
+		        		}
 		        	}
                 }
             }
 	        for (int col = 0; col < N; col++) {
-	        	if (!toSolve.isValueSolvedInCol(col, val)) {
+	        	if (changed[N + col] && !toSolve.isValueSolvedInCol(col, val)) {
 		        	if (resolveColLockedCandidates(toSolve, col, val)) {
 		        		solvedCount++;
+		        		if (isStepFound()) {
+		        			forgetLines(tracker, changed);
+		        			return true;
+		        		}
 		        	}
                 }
             }
@@ -432,6 +536,21 @@ public abstract class BaseSolver {
             return false;
         }
     }
+
+    /**
+     * Forget the lines being examined for locked candidates. Lines are examined
+     * value by value, so none of them is finished when a step is found.
+     *
+     * @param tracker the change tracker
+     * @param changed the lines being examined
+     */
+    private static void forgetLines(ChangeTracker tracker, boolean[] changed) {
+        for (int unit = 0; unit < changed.length; unit++) {
+            if (changed[unit]) {
+                tracker.forgetUnit(LINE_LOCKED, unit);
+            }
+        }
+    }
     
     /**
      * Resolve row locked candidates.
@@ -467,6 +586,7 @@ public abstract class BaseSolver {
 	        			if (toSolve.isCellUserValuePossible(r, c, value)) {
 	        				logger.debug("Removing locked row [" + r + "][" + c + "] for " + value);
 		        			toSolve.setCellValueAsImpossible(r, c, value);
+		        			recordElimination(r * N + c, value);
 		            		changes++;
 	            		}
 	            	}
@@ -514,6 +634,7 @@ public abstract class BaseSolver {
 	        			if (toSolve.isCellUserValuePossible(r, c, value)) {
 		        			logger.debug("Removing locked col [" + r + "][" + c + "] for " + value);
 		            		toSolve.setCellValueAsImpossible(r, c, value);
+		            		recordElimination(r * N + c, value);
 		            		changes++;
 	        			}
 	            	}
@@ -528,49 +649,296 @@ public abstract class BaseSolver {
     }
 
     /**
-     * Solve advanced X wing and skyscraper.
+     * Solve advanced X wing and skyscraper. Both are two parallel strong links
+     * (rows or columns) of a value where one end of each link lies in the same
+     * line, so one of the two other ends holds the value.
      *
      * @param toSolve the sudoku to solve
      * @return true, if successful
      */
     protected boolean solveAdvancedXWingAndSkyscraper(Sudoku toSolve) {
+        int changes = 0;
+        ChangeTracker tracker = getChangeTracker(toSolve);
+        for (int val = 1; val <= N; val++) {
+            if (tracker.isValueChanged(SKYSCRAPER, val)) {
+                changes += resolveLinkedStrongLinks(toSolve, val, SKYSCRAPER);
+                if (isStepFound()) {
+                    tracker.forgetValue(SKYSCRAPER, val);
+                    return true;
+                }
+            }
+        }
 
+        if (changes > 0) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Solve 2-String Kite: a row and a column strong link of a value with one
+     * end of each link in the same grid, so one of the two other ends holds the value.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     */
+    protected boolean solveTwoStringKite(Sudoku toSolve) {
         int changes = 0;
+        ChangeTracker tracker = getChangeTracker(toSolve);
         for (int val = 1; val <= N; val++) {
-            List<List<Cell>> cellsRows = new ArrayList<>();
-            for (int row = 0; row < N; row++) {
-                List<Cell> temp = new ArrayList<>();
-                int possibilities = 0;
-                for (int col = 0; col < N; col++) {
-                    if (sudoku.isCellValuePossible(row, col, val)) {
-                        temp.add(new Cell(row, col, val));
-                        possibilities++;
-                    }
+            if (tracker.isValueChanged(TWO_STRING_KITE, val)) {
+                changes += resolveLinkedStrongLinks(toSolve, val, TWO_STRING_KITE);
+                if (isStepFound()) {
+                    tracker.forgetValue(TWO_STRING_KITE, val);
+                    return true;
                 }
-                if (possibilities == 2) {
-                    cellsRows.add(temp);
+            }
+        }
+
+        if (changes > 0) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Solve Turbot Fish: any other two strong links of a value connected by
+     * two ends that see each other (for example a grid and a row link).
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     */
+    protected boolean solveTurbotFish(Sudoku toSolve) {
+        int changes = 0;
+        ChangeTracker tracker = getChangeTracker(toSolve);
+        for (int val = 1; val <= N; val++) {
+            if (tracker.isValueChanged(TURBOT_FISH, val)) {
+                changes += resolveLinkedStrongLinks(toSolve, val, TURBOT_FISH);
+                if (isStepFound()) {
+                    tracker.forgetValue(TURBOT_FISH, val);
+                    return true;
+                }
+            }
+        }
+
+        if (changes > 0) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resolve pairs of strong links (a=b and c=d) of a value, where the inner
+     * ends b and c see each other. At most one of b and c holds the value, so
+     * a or d does and every cell that sees both a and d can not hold the value.
+     *
+     * @param toSolve the sudoku to solve
+     * @param value the value
+     * @param technique the technique (SKYSCRAPER, TWO_STRING_KITE or TURBOT_FISH)
+     * @return the number of changes
+     */
+    private int resolveLinkedStrongLinks(Sudoku toSolve, int value, int technique) {
+        int changes = 0;
+        StrongLinkGraph graph = getStrongLinkGraph(toSolve);
+        int[] links = graph.getLinks(value);
+        int[] units = graph.getLinkUnits(value);
+
+        for (int one = 0; one < units.length; one++) {
+            for (int two = one + 1; two < units.length; two++) {
+                for (int orientation = 0; orientation < 4; orientation++) {
+                    int innerOne = links[one * 2 + (orientation & 1)];
+                    int outerOne = links[one * 2 + 1 - (orientation & 1)];
+                    int innerTwo = links[two * 2 + (orientation >> 1)];
+                    int outerTwo = links[two * 2 + 1 - (orientation >> 1)];
+
+                    if (innerOne == innerTwo || innerOne == outerTwo || outerOne == innerTwo || outerOne == outerTwo
+                            || !PeerUtil.sees(innerOne, innerTwo)
+                            || classifyLinkedStrongLinks(units[one], units[two], innerOne, innerTwo) != technique) {
+                        continue;
+                    }
+                    for (int cell : PeerUtil.getCommonPeers(outerOne, outerTwo)) {
+                        if (removeCandidate(toSolve, cell, value, TECHNIQUE_NAMES[technique])) {
+                            changes++;
+                        }
+                    }
+                    if (isStepFound()) {
+                        return changes;
+                    }
                 }
             }
-            if (cellsRows.size() >= 2) {
-                changes += resolveXWingAndSkyscraperRows(toSolve, cellsRows);
+        }
+        return changes;
+    }
+
+    /**
+     * Classify two strong links connected by their inner ends.
+     *
+     * @param unitOne the unit of the first link
+     * @param unitTwo the unit of the second link
+     * @param innerOne the inner end of the first link
+     * @param innerTwo the inner end of the second link
+     * @return the technique (SKYSCRAPER, TWO_STRING_KITE or TURBOT_FISH)
+     */
+    private int classifyLinkedStrongLinks(int unitOne, int unitTwo, int innerOne, int innerTwo) {
+        int typeOne = unitOne / N;
+        int typeTwo = unitTwo / N;
+        if (typeOne == 0 && typeTwo == 0 && innerOne % N == innerTwo % N) {
+            return SKYSCRAPER;
+        }
+        if (typeOne == 1 && typeTwo == 1 && innerOne / N == innerTwo / N) {
+            return SKYSCRAPER;
+        }
+        if (typeOne < 2 && typeTwo < 2 && typeOne != typeTwo
+                && PeerUtil.getCellUnits(innerOne)[2] == PeerUtil.getCellUnits(innerTwo)[2]) {
+            return TWO_STRING_KITE;
+        }
+        return TURBOT_FISH;
+    }
+
+    /**
+     * Solve simple coloring: cells of a value connected by strong links get
+     * alternating colors, and exactly one color holds the value. If two cells
+     * of one color see each other, the color is false. A cell that sees both
+     * colors can not hold the value.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     */
+    protected boolean solveSimpleColoring(Sudoku toSolve) {
+        int changes = 0;
+        StrongLinkGraph graph = getStrongLinkGraph(toSolve);
+        int[] colors = new int[PeerUtil.CELLS];
+        int[] members = new int[PeerUtil.CELLS];
+        ChangeTracker tracker = getChangeTracker(toSolve);
+
+        for (int value = 1; value <= N; value++) {
+            if (!tracker.isValueChanged(SIMPLE_COLORING, value)) {
+                continue;
             }
+            int[] links = graph.getLinks(value);
+            Arrays.fill(colors, 0);
+            int component = 0;
+
+            for (int start = 0; start < links.length; start++) {
+                if (colors[links[start]] != 0) {
+                    continue;
+                }
 
-            List<List<Cell>> cellsCols = new ArrayList<>();
-            for (int col = 0; col < N; col++) {
-                List<Cell> temp = new ArrayList<>();
-                int possibilities = 0;
-                for (int row = 0; row < N; row++) {
-                    if (sudoku.isCellValuePossible(row, col, val)) {
-                        temp.add(new Cell(row, col, val));
-                        possibilities++;
+                // color component (colors 2*component+2 and 2*component+3)
+                int base = 2 * component + 2;
+                int count = 0;
+                colors[links[start]] = base;
+                members[count++] = links[start];
+                for (int index = 0; index < count; index++) {
+                    int cell = members[index];
+                    for (int i = 0; i < links.length; i++) {
+                        int other = links[i ^ 1];
+                        if (links[i] == cell && colors[other] == 0) {
+                            colors[other] = colors[cell] ^ 1;
+                            members[count++] = other;
+                        }
+                    }
+                }
+                component++;
+
+                // color wrap
+                int wrong = -1;
+                for (int one = 0; one < count && wrong < 0; one++) {
+                    for (int two = one + 1; two < count; two++) {
+                        if (colors[members[one]] == colors[members[two]] && PeerUtil.sees(members[one], members[two])) {
+                            wrong = colors[members[one]];
+                            break;
+                        }
+                    }
+                }
+                if (wrong >= 0) {
+                    for (int index = 0; index < count; index++) {
+                        if (colors[members[index]] == wrong && removeCandidate(toSolve, members[index], value, "Simple Coloring")) {
+                            changes++;
+                        }
+                    }
+                    if (isStepFound()) {
+                        tracker.forgetValue(SIMPLE_COLORING, value);
+                        return true;
+                    }
+                    continue;
+                }
+
+                // color trap
+                for (int cell = 0; cell < PeerUtil.CELLS; cell++) {
+                    if (colors[cell] != 0 || (getCandidateMask(toSolve, cell) & (1 << (value - 1))) == 0) {
+                        continue;
+                    }
+                    boolean seesFirst = false;
+                    boolean seesSecond = false;
+                    for (int index = 0; index < count; index++) {
+                        if (PeerUtil.sees(cell, members[index])) {
+                            seesFirst |= colors[members[index]] == base;
+                            seesSecond |= colors[members[index]] == base + 1;
+                        }
+                    }
+                    if (seesFirst && seesSecond && removeCandidate(toSolve, cell, value, "Simple Coloring")) {
+                        changes++;
                     }
                 }
-                if (possibilities == 2) {
-                    cellsCols.add(temp);
+                if (isStepFound()) {
+                    tracker.forgetValue(SIMPLE_COLORING, value);
+                    return true;
                 }
             }
-            if (cellsCols.size() >= 2) {
-                changes += resolveXWingAndSkyscraperCols(toSolve, cellsCols);
+        }
+
+        if (changes > 0) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Solve XY-Wing: a bivalue pivot {x,y} sees bivalue pincers {x,z} and
+     * {y,z}, so z can be removed from every cell that sees both pincers.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     */
+    protected boolean solveXYWing(Sudoku toSolve) {
+        int changes = 0;
+        int[] cells = getBivalueCells(toSolve);
+
+        for (int pivot : cells) {
+            int pivotMask = getCandidateMask(toSolve, pivot);
+            if (Integer.bitCount(pivotMask) != 2) {
+                continue;
+            }
+            for (int one = 0; one < cells.length; one++) {
+                int pincerOne = cells[one];
+                int maskOne = getCandidateMask(toSolve, pincerOne);
+                if (!PeerUtil.sees(pivot, pincerOne) || Integer.bitCount(maskOne) != 2
+                        || Integer.bitCount(maskOne & pivotMask) != 1) {
+                    continue;
+                }
+                for (int two = one + 1; two < cells.length; two++) {
+                    int pincerTwo = cells[two];
+                    int maskTwo = getCandidateMask(toSolve, pincerTwo);
+                    if (!PeerUtil.sees(pivot, pincerTwo) || Integer.bitCount(maskTwo) != 2
+                            || Integer.bitCount(maskTwo & pivotMask) != 1) {
+                        continue;
+                    }
+                    // pincers have to use different pivot values and share the same z
+                    int z = maskOne & ~pivotMask;
+                    if ((maskOne & pivotMask) == (maskTwo & pivotMask) || z != (maskTwo & ~pivotMask)) {
+                        continue;
+                    }
+                    int value = Integer.numberOfTrailingZeros(z) + 1;
+                    for (int cell : PeerUtil.getCommonPeers(pincerOne, pincerTwo)) {
+                        if (removeCandidate(toSolve, cell, value, "XY-Wing")) {
+                            changes++;
+                        }
+                    }
+                    if (isStepFound()) {
+                        return true;
+                    }
+                }
             }
         }
 
@@ -581,112 +949,845 @@ public abstract class BaseSolver {
     }
 
     /**
-     * Resolve X wing and skyscraper rows.
+     * Solve XYZ-Wing: a pivot {x,y,z} sees bivalue pincers {x,z} and {y,z},
+     * so z can be removed from every cell that sees the pivot and both pincers.
      *
      * @param toSolve the sudoku to solve
-     * @param cellsRows the cells rows
-     * @return the int
+     * @return true, if successful
      */
-    private int resolveXWingAndSkyscraperRows(Sudoku toSolve, List<List<Cell>> cellsRows) {
+    protected boolean solveXYZWing(Sudoku toSolve) {
         int changes = 0;
-        for (int index = 0; index < cellsRows.size(); index++) {
-            int colOne = cellsRows.get(index).get(0).getCol();
-            int colTwo = cellsRows.get(index).get(1).getCol();
-            int row = cellsRows.get(index).get(0).getRow();
-            int value = cellsRows.get(index).get(0).getValue();
+        int[] cells = getBivalueCells(toSolve);
 
-            for (int indexTested = index + 1; indexTested < cellsRows.size(); indexTested++) {
-                int rowTested = cellsRows.get(indexTested).get(0).getRow();
-                int colTestedOne = cellsRows.get(indexTested).get(0).getCol();
-                int colTestedTwo = cellsRows.get(indexTested).get(1).getCol();
+        for (int pivot = 0; pivot < PeerUtil.CELLS; pivot++) {
+            int pivotMask = getCandidateMask(toSolve, pivot);
+            if (Integer.bitCount(pivotMask) != 3 || toSolve.getCellValue(pivot / N, pivot % N) != 0) {
+                continue;
+            }
+            for (int one = 0; one < cells.length; one++) {
+                int pincerOne = cells[one];
+                int maskOne = getCandidateMask(toSolve, pincerOne);
+                if (!PeerUtil.sees(pivot, pincerOne) || Integer.bitCount(maskOne) != 2
+                        || (maskOne & ~pivotMask) != 0) {
+                    continue;
+                }
+                for (int two = one + 1; two < cells.length; two++) {
+                    int pincerTwo = cells[two];
+                    int maskTwo = getCandidateMask(toSolve, pincerTwo);
+                    if (!PeerUtil.sees(pivot, pincerTwo) || Integer.bitCount(maskTwo) != 2
+                            || (maskTwo & ~pivotMask) != 0 || (maskOne | maskTwo) != pivotMask) {
+                        continue;
+                    }
+                    int value = Integer.numberOfTrailingZeros(maskOne & maskTwo) + 1;
+                    for (int cell : PeerUtil.getCommonPeers(pincerOne, pincerTwo)) {
+                        if (PeerUtil.sees(pivot, cell) && removeCandidate(toSolve, cell, value, "XYZ-Wing")) {
+                            changes++;
+                        }
+                    }
+                    if (isStepFound()) {
+                        return true;
+                    }
+                }
+            }
+        }
 
-                if (colTestedOne == colOne || colTestedTwo == colTwo) {
-                    changes += resolveAlternativesOverlap(toSolve, value, row, colOne, rowTested, colTestedTwo, row, colTwo, rowTested, colTestedOne);
+        if (changes > 0) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Solve W-Wing: two bivalue cells {x,y} that do not see each other are
+     * connected by a strong link on x (a unit where x has only two places),
+     * so y can be removed from every cell that sees both bivalue cells.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     */
+    protected boolean solveWWing(Sudoku toSolve) {
+        int changes = 0;
+        int[] cells = getBivalueCells(toSolve);
+        StrongLinkGraph graph = getStrongLinkGraph(toSolve);
+
+        for (int one = 0; one < cells.length; one++) {
+            int cellOne = cells[one];
+            int mask = getCandidateMask(toSolve, cellOne);
+            for (int two = one + 1; two < cells.length; two++) {
+                int cellTwo = cells[two];
+                if (getCandidateMask(toSolve, cellTwo) != mask || Integer.bitCount(mask) != 2
+                        || PeerUtil.sees(cellOne, cellTwo)) {
+                    continue;
+                }
+                for (int x = 1; x <= N; x++) {
+                    if ((mask & (1 << (x - 1))) == 0) {
+                        continue;
+                    }
+                    int y = Integer.numberOfTrailingZeros(mask & ~(1 << (x - 1))) + 1;
+                    int[] link = graph.getLinks(x);
+                    for (int i = 0; i < link.length; i += 2) {
+                        int start = link[i];
+                        int end = link[i + 1];
+                        if ((PeerUtil.sees(start, cellOne) && PeerUtil.sees(end, cellTwo))
+                                || (PeerUtil.sees(start, cellTwo) && PeerUtil.sees(end, cellOne))) {
+                            for (int cell : PeerUtil.getCommonPeers(cellOne, cellTwo)) {
+                                if (removeCandidate(toSolve, cell, y, "W-Wing")) {
+                                    changes++;
+                                }
+                            }
+                            if (isStepFound()) {
+                                return true;
+                            }
+                        }
+                    }
                 }
             }
         }
-        return changes;
+
+        if (changes > 0) {
+            return true;
+        }
+        return false;
     }
 
     /**
-     * Resolve X wing and skyscraper cols.
+     * Solve by unique rectangles (types 1-4). Four unsolved cells in two rows,
+     * two columns and two grids must not all be reduced to the same two
+     * values, since such a pattern would give the puzzle two solutions. Only
+     * sound for puzzles with a unique solution.
      *
      * @param toSolve the sudoku to solve
-     * @param cellsCols the cells cols
-     * @return the int
+     * @return true, if successful
      */
-    private int resolveXWingAndSkyscraperCols(Sudoku toSolve, List<List<Cell>> cellsCols) {
+    protected boolean solveUniqueRectangles(Sudoku toSolve) {
         int changes = 0;
-        for (int index = 0; index < cellsCols.size(); index++) {
-            int rowOne = cellsCols.get(index).get(0).getRow();
-            int rowTwo = cellsCols.get(index).get(1).getRow();
-            int col = cellsCols.get(index).get(0).getCol();
-            int value = cellsCols.get(index).get(0).getValue();
+        int[] corners = new int[4];
+
+        for (int rowOne = 0; rowOne < N; rowOne++) {
+            for (int rowTwo = rowOne + 1; rowTwo < N; rowTwo++) {
+                for (int colOne = 0; colOne < N; colOne++) {
+                    for (int colTwo = colOne + 1; colTwo < N; colTwo++) {
+                        // rectangle has to span exactly two grids
+                        if ((rowOne / 3 == rowTwo / 3) == (colOne / 3 == colTwo / 3)) {
+                            continue;
+                        }
+                        corners[0] = rowOne * N + colOne;
+                        corners[1] = rowOne * N + colTwo;
+                        corners[2] = rowTwo * N + colOne;
+                        corners[3] = rowTwo * N + colTwo;
+                        int common = (1 << N) - 1;
+                        for (int corner : corners) {
+                            common &= toSolve.getCellValue(corner / N, corner % N) == 0
+                                    ? getCandidateMask(toSolve, corner) : 0;
+                        }
+                        if (Integer.bitCount(common) < 2) {
+                            continue;
+                        }
+                        for (int first = common; first != 0; first &= first - 1) {
+                            for (int second = first & (first - 1); second != 0; second &= second - 1) {
+                                int pair = Integer.lowestOneBit(first) | Integer.lowestOneBit(second);
+                                changes += resolveUniqueRectangle(toSolve, corners, pair);
+                                if (changes > 0) {
+                                    return true;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolve unique rectangle of four corners for a pair of values.
+     *
+     * @param toSolve the sudoku to solve
+     * @param corners the corners (row one, row two; column one, column two)
+     * @param pair the mask of the pair of values
+     * @return the number of changes
+     */
+    private int resolveUniqueRectangle(Sudoku toSolve, int[] corners, int pair) {
+        int changes = 0;
+        int floors = 0;
+        int[] roofs = new int[4];
+        int roofCount = 0;
+        for (int corner : corners) {
+            if (getCandidateMask(toSolve, corner) == pair) {
+                floors++;
+            } else {
+                roofs[roofCount++] = corner;
+            }
+        }
+
+        // type 1: one corner with extra values can not hold the pair
+        if (floors == 3) {
+            for (int rest = pair; rest != 0; rest &= rest - 1) {
+                if (removeCandidate(toSolve, roofs[0], Integer.numberOfTrailingZeros(rest) + 1, "Unique Rectangle 1")) {
+                    changes++;
+                }
+            }
+            return changes;
+        }
+        if (floors != 2) {
+            return 0;
+        }
 
-            for (int indexTested = index + 1; indexTested < cellsCols.size(); indexTested++) {
-                int colTested = cellsCols.get(indexTested).get(0).getCol();
-                int rowTestedOne = cellsCols.get(indexTested).get(0).getRow();
-                int rowTestedTwo = cellsCols.get(indexTested).get(1).getRow();
+        int roofOne = roofs[0];
+        int roofTwo = roofs[1];
+        int extraOne = getCandidateMask(toSolve, roofOne) & ~pair;
+        int extraTwo = getCandidateMask(toSolve, roofTwo) & ~pair;
 
-                if (rowTestedOne == rowOne || rowTestedTwo == rowTwo) {
-                    changes += resolveAlternativesOverlap(toSolve, value, rowOne, col, rowTestedTwo, colTested, rowTwo, col, rowTestedOne, colTested);
+        // type 2: both roofs have the same single extra value, one of them holds it
+        if (extraOne == extraTwo && Integer.bitCount(extraOne) == 1) {
+            for (int cell : PeerUtil.getCommonPeers(roofOne, roofTwo)) {
+                if (removeCandidate(toSolve, cell, Integer.numberOfTrailingZeros(extraOne) + 1, "Unique Rectangle 2")) {
+                    changes++;
+                }
+            }
+            if (changes > 0) {
+                return changes;
+            }
+        }
+
+        if (!PeerUtil.sees(roofOne, roofTwo)) {
+            return 0;
+        }
+        int[] roofUnits = PeerUtil.getCellUnits(roofOne);
+        int[] otherUnits = PeerUtil.getCellUnits(roofTwo);
+        for (int i = 0; i < 3; i++) {
+            if (roofUnits[i] != otherUnits[i]) {
+                continue;
+            }
+            int unit = roofUnits[i];
+            int roofPlaces = (1 << PeerUtil.getUnitPosition(unit, roofOne)) | (1 << PeerUtil.getUnitPosition(unit, roofTwo));
+
+            // type 4: one pair value is locked to the roofs, so the other one can not be in them
+            for (int rest = pair; rest != 0; rest &= rest - 1) {
+                int value = Integer.numberOfTrailingZeros(rest) + 1;
+                if (toSolve.getValuePlaces(unit, value) == roofPlaces) {
+                    int other = Integer.numberOfTrailingZeros(pair & ~(1 << (value - 1))) + 1;
+                    if (removeCandidate(toSolve, roofOne, other, "Unique Rectangle 4")) {
+                        changes++;
+                    }
+                    if (removeCandidate(toSolve, roofTwo, other, "Unique Rectangle 4")) {
+                        changes++;
+                    }
                 }
             }
+            if (changes > 0) {
+                return changes;
+            }
+
+            // type 3: extra values of the roofs form a naked subset with other cells of the unit
+            changes += resolveUniqueRectangleSubset(toSolve, unit, roofPlaces, extraOne | extraTwo);
+            if (changes > 0) {
+                return changes;
+            }
         }
         return changes;
     }
 
     /**
-     * Resolve alternatives overlap.
+     * Resolve naked subset of the extra roof values (as one virtual cell)
+     * with one or two other cells of the unit.
      *
      * @param toSolve the sudoku to solve
-     * @param value the value
-     * @param rowOne the row one
-     * @param colOne the column one
-     * @param rowTwo the row two
-     * @param colTwo the column two
-     * @param alternativeRowOne the alternative row one
-     * @param alternativeColOne the alternative column one
-     * @param alternativeRowTwo the alternative row two
-     * @param alternativeColTwo the alternative column two
-     * @return the int
-     */
-    private int resolveAlternativesOverlap(Sudoku toSolve, int value, int rowOne, int colOne, int rowTwo, int colTwo,
-            int alternativeRowOne, int alternativeColOne, int alternativeRowTwo, int alternativeColTwo){
+     * @param unit the unit
+     * @param roofPlaces the places of roofs in the unit
+     * @param extra the mask of extra roof values
+     * @return the number of changes
+     */
+    private int resolveUniqueRectangleSubset(Sudoku toSolve, int unit, int roofPlaces, int extra) {
+        int changes = 0;
+        int[] cells = PeerUtil.getUnitCells(unit);
+        for (int one = 0; one < N; one++) {
+            int cellOne = cells[one];
+            if ((roofPlaces & (1 << one)) != 0 || toSolve.getCellValue(cellOne / N, cellOne % N) != 0) {
+                continue;
+            }
+            int subsetOne = extra | getCandidateMask(toSolve, cellOne);
+            if (Integer.bitCount(subsetOne) == 2) {
+                changes += removeSubset(toSolve, cells, roofPlaces | (1 << one), subsetOne);
+                if (changes > 0) {
+                    return changes;
+                }
+            }
+            for (int two = one + 1; two < N; two++) {
+                int cellTwo = cells[two];
+                if ((roofPlaces & (1 << two)) != 0 || toSolve.getCellValue(cellTwo / N, cellTwo % N) != 0) {
+                    continue;
+                }
+                int subsetTwo = subsetOne | getCandidateMask(toSolve, cellTwo);
+                if (Integer.bitCount(subsetTwo) == 3) {
+                    changes += removeSubset(toSolve, cells, roofPlaces | (1 << one) | (1 << two), subsetTwo);
+                    if (changes > 0) {
+                        return changes;
+                    }
+                }
+            }
+        }
+        return changes;
+    }
 
+    /**
+     * Remove values of a naked subset from the other cells of a unit.
+     *
+     * @param toSolve the sudoku to solve
+     * @param cells the cells of the unit
+     * @param places the places of the subset in the unit
+     * @param subset the mask of subset values
+     * @return the number of changes
+     */
+    private int removeSubset(Sudoku toSolve, int[] cells, int places, int subset) {
         int changes = 0;
-        Sudoku posibilitiesOne = new Sudoku();
-        Sudoku posibilitiesTwo = new Sudoku();
-        
-        try {
-	        // set possible values scenario 1
-	        posibilitiesOne.setCellValue(rowOne,colOne,value);
-	        posibilitiesOne.setCellValue(rowTwo,colTwo,value);
-	        // set possible values scenario 2
-	        posibilitiesTwo.setCellValue(alternativeRowOne,alternativeColOne,value);
-	        posibilitiesTwo.setCellValue(alternativeRowTwo,alternativeColTwo,value);
-        } catch (IllegalArgumentException e) {
-        	return changes;
-        }
-
-        for(int solutionRow = 0; solutionRow<N; solutionRow++) {
-            for (int solutionCol = 0; solutionCol < N; solutionCol++) {
-                if (!posibilitiesOne.isCellValuePossible(solutionRow, solutionCol, value)
-                        && !posibilitiesTwo.isCellValuePossible(solutionRow, solutionCol, value)) {
-                    if (toSolve.isCellValuePossible(solutionRow, solutionCol, value)) {
-                        toSolve.setCellValueAsImpossible(solutionRow, solutionCol, value);
-                        logger.debug("Setting cell value as impossible [" + solutionRow 
-                        		+ "][" + solutionCol + "], value: (" + value + ")");
-                        logger.debug(toSolve.printPossibilities(value));
-                        logger.debug(toSolve);
-                        changes++;
+        for (int i = 0; i < N; i++) {
+            if ((places & (1 << i)) != 0) {
+                continue;
+            }
+            for (int rest = subset; rest != 0; rest &= rest - 1) {
+                if (removeCandidate(toSolve, cells[i], Integer.numberOfTrailingZeros(rest) + 1, "Unique Rectangle 3")) {
+                    changes++;
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Solve by bivalue universal grave + 1. When every unsolved cell has two
+     * values except one cell with three, the value of that cell appearing
+     * three times in its units has to be placed there, otherwise the puzzle
+     * would have two solutions. Only sound for puzzles with a unique solution.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     * @throws SolvingException the solving exception
+     */
+    protected boolean solveBugPlusOne(Sudoku toSolve) throws SolvingException {
+        int extraCell = -1;
+        for (int cell = 0; cell < PeerUtil.CELLS; cell++) {
+            if (toSolve.getCellValue(cell / N, cell % N) != 0) {
+                continue;
+            }
+            int count = toSolve.getCandidateCount(cell / N, cell % N);
+            if (count == 3 && extraCell < 0) {
+                extraCell = cell;
+            } else if (count != 2) {
+                return false;
+            }
+        }
+        if (extraCell < 0) {
+            return false;
+        }
+
+        // the extra value appears three times in units of the extra cell, all other twice
+        int[] extraUnits = PeerUtil.getCellUnits(extraCell);
+        int extraValue = 0;
+        for (int rest = getCandidateMask(toSolve, extraCell); rest != 0; rest &= rest - 1) {
+            int value = Integer.numberOfTrailingZeros(rest) + 1;
+            if (Integer.bitCount(toSolve.getValuePlaces(extraUnits[0], value) & getUnsolvedPlaces(toSolve, extraUnits[0])) == 3) {
+                if (extraValue != 0) {
+                    return false;
+                }
+                extraValue = value;
+            }
+        }
+        if (extraValue == 0) {
+            return false;
+        }
+        for (int unit = 0; unit < PeerUtil.UNITS; unit++) {
+            boolean extraUnit = unit == extraUnits[0] || unit == extraUnits[1] || unit == extraUnits[2];
+            int unsolved = getUnsolvedPlaces(toSolve, unit);
+            for (int value = 1; value <= N; value++) {
+                int count = Integer.bitCount(toSolve.getValuePlaces(unit, value) & unsolved);
+                int expected = extraUnit && value == extraValue ? 3 : 2;
+                if (count != 0 && count != expected) {
+                    return false;
+                }
+            }
+        }
+        return placeValue(toSolve, extraCell, extraValue, "BUG+1");
+    }
+
+    /**
+     * Gets the places of unsolved cells in a unit.
+     *
+     * @param toSolve the sudoku to solve
+     * @param unit the unit
+     * @return the unsolved places
+     */
+    private int getUnsolvedPlaces(Sudoku toSolve, int unit) {
+        int places = 0;
+        int[] cells = PeerUtil.getUnitCells(unit);
+        for (int i = 0; i < N; i++) {
+            if (toSolve.getCellValue(cells[i] / N, cells[i] % N) == 0) {
+                places |= 1 << i;
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Solve by ALS-XZ. Two almost locked sets A and B with a restricted common
+     * value x can not both lose a value to x, so for any other common value z
+     * one of them holds z and z can be removed from every cell that sees all
+     * z cells of both sets.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     */
+    protected boolean solveAlsXz(Sudoku toSolve) {
+        AlmostLockedSetCache cache = getAlmostLockedSetCache(toSolve);
+        List<AlmostLockedSet> sets = cache.getAlmostLockedSets();
+
+        for (int one = 0; one < sets.size(); one++) {
+            AlmostLockedSet setOne = sets.get(one);
+            for (int two = one + 1; two < sets.size(); two++) {
+                AlmostLockedSet setTwo = sets.get(two);
+                // pairs of unchanged sets were examined by the last scan
+                if (setOne.getRound() <= alsXzRound && setTwo.getRound() <= alsXzRound) {
+                    continue;
+                }
+                int common = setOne.getMask() & setTwo.getMask();
+                if (Integer.bitCount(common) < 2 || setOne.overlaps(setTwo)) {
+                    continue;
+                }
+                int restricted = setOne.getRestrictedCommons(setTwo);
+                if (restricted == 0) {
+                    continue;
+                }
+                int changes = 0;
+                for (int rest = restricted; rest != 0; rest &= rest - 1) {
+                    int x = Integer.lowestOneBit(rest);
+                    changes += removeAlsCommon(toSolve, setOne, setTwo, common & ~x, "ALS-XZ");
+                }
+                if (changes > 0) {
+                    return true;
+                }
+            }
+        }
+        alsXzRound = cache.getRound();
+        return false;
+    }
+
+    /**
+     * Solve by ALS-XY-Wing. Almost locked sets A and B are both connected to a
+     * set C by different restricted common values x and y, so A or B holds any
+     * value z they have in common and z can be removed from every cell that
+     * sees all z cells of A and B.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     */
+    protected boolean solveAlsXyWing(Sudoku toSolve) {
+        AlmostLockedSetCache cache = getAlmostLockedSetCache(toSolve);
+        List<AlmostLockedSet> sets = cache.getAlmostLockedSets();
+        int count = sets.size();
+
+        for (int pivot = 0; pivot < count; pivot++) {
+            AlmostLockedSet setPivot = sets.get(pivot);
+            // sets connected to the pivot and their restricted common values
+            List<AlmostLockedSet> wings = new ArrayList<AlmostLockedSet>();
+            List<Integer> wingValues = new ArrayList<Integer>();
+            for (int other = 0; other < count; other++) {
+                AlmostLockedSet setOther = sets.get(other);
+                if (other == pivot || setPivot.overlaps(setOther)) {
+                    continue;
+                }
+                int restricted = setPivot.getRestrictedCommons(setOther);
+                if (restricted != 0) {
+                    wings.add(setOther);
+                    wingValues.add(restricted);
+                }
+            }
+
+            for (int one = 0; one < wings.size(); one++) {
+                AlmostLockedSet setOne = wings.get(one);
+                for (int two = one + 1; two < wings.size(); two++) {
+                    AlmostLockedSet setTwo = wings.get(two);
+                    // wings of unchanged sets were examined by the last scan
+                    if (setPivot.getRound() <= alsXyWingRound && setOne.getRound() <= alsXyWingRound
+                            && setTwo.getRound() <= alsXyWingRound) {
+                        continue;
+                    }
+                    int common = setOne.getMask() & setTwo.getMask();
+                    if (common == 0 || setOne.overlaps(setTwo)) {
+                        continue;
+                    }
+                    int changes = 0;
+                    for (int restOne = wingValues.get(one); restOne != 0; restOne &= restOne - 1) {
+                        int x = Integer.lowestOneBit(restOne);
+                        for (int restTwo = wingValues.get(two) & ~x; restTwo != 0; restTwo &= restTwo - 1) {
+                            int y = Integer.lowestOneBit(restTwo);
+                            changes += removeAlsCommon(toSolve, setOne, setTwo, common & ~x & ~y, "ALS-XY-Wing");
+                        }
+                    }
+                    if (changes > 0) {
+                        return true;
                     }
                 }
             }
         }
+        alsXyWingRound = cache.getRound();
+        return false;
+    }
+
+    /**
+     * Remove values held by one of two almost locked sets from cells outside
+     * the sets seeing all cells of both sets with the value.
+     *
+     * @param toSolve the sudoku to solve
+     * @param setOne the first set
+     * @param setTwo the second set
+     * @param values the values as a bit mask
+     * @param technique the technique name used for logging
+     * @return the number of changes
+     */
+    private int removeAlsCommon(Sudoku toSolve, AlmostLockedSet setOne, AlmostLockedSet setTwo, int values,
+            String technique) {
+        int changes = 0;
+        for (int rest = values; rest != 0; rest &= rest - 1) {
+            int z = Integer.numberOfTrailingZeros(rest) + 1;
+            for (int cell = 0; cell < PeerUtil.CELLS; cell++) {
+                if (setOne.seesAll(z, cell) && setTwo.seesAll(z, cell) && !setOne.contains(cell)
+                        && !setTwo.contains(cell) && removeCandidate(toSolve, cell, z, technique)) {
+                    changes++;
+                }
+            }
+        }
         return changes;
     }
 
+    /**
+     * Solve by alternating inference chains. A chain starting with candidate x
+     * being false and ending with candidate y being true proves that x or y is
+     * true, so every candidate weakly linked to both x and y can be removed.
+     * If the chain ends with x itself being true, x is placed. Only chains of
+     * the first productive start candidate are used in one step.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     * @throws SolvingException the solving exception
+     */
+    protected boolean solveAlternatingInferenceChains(Sudoku toSolve) throws SolvingException {
+        ImplicationGraph graph = getImplicationGraph(toSolve);
+        long[] reached = ImplicationGraph.createLiteralSet();
+
+        for (int x = 0; x < ImplicationGraph.CANDIDATES; x++) {
+            if (!graph.isCandidate(x)) {
+                continue;
+            }
+            graph.propagate(x, false, maxChainDepth, reached);
+            if (ImplicationGraph.contains(reached, x * 2 + 1)) {
+                if (placeValue(toSolve, x / N, x % N + 1, "AIC")) {
+                    return true;
+                }
+                continue;
+            }
+
+            int changes = 0;
+            for (int y = 0; y < ImplicationGraph.CANDIDATES; y++) {
+                if (y == x || !ImplicationGraph.contains(reached, y * 2 + 1)) {
+                    continue;
+                }
+                for (int z : graph.getWeakLinks(y)) {
+                    if (z != x && isWeaklyLinked(x, z) && removeCandidate(toSolve, z / N, z % N + 1, "AIC")) {
+                        changes++;
+                    }
+                }
+            }
+            if (changes > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Solve by cell and unit forcing chains. Every candidate of a cell (or
+     * every place of a value in a unit) is assumed true in turn and whatever
+     * follows from all of them is applied. A candidate whose assumption leads
+     * to some candidate being both true and false is removed. Only deductions
+     * of the first productive cell or unit are used in one step.
+     *
+     * @param toSolve the sudoku to solve
+     * @return true, if successful
+     * @throws SolvingException the solving exception
+     */
+    protected boolean solveForcingChains(Sudoku toSolve) throws SolvingException {
+        ImplicationGraph graph = getImplicationGraph(toSolve);
+        long[] reached = ImplicationGraph.createLiteralSet();
+        long[] common = ImplicationGraph.createLiteralSet();
+        int[] starts = new int[N];
+
+        // cell forcing chains
+        for (int cell = 0; cell < PeerUtil.CELLS; cell++) {
+            if (toSolve.getCellValue(cell / N, cell % N) != 0) {
+                continue;
+            }
+            int count = 0;
+            for (int rest = getCandidateMask(toSolve, cell); rest != 0; rest &= rest - 1) {
+                starts[count++] = cell * N + Integer.numberOfTrailingZeros(rest);
+            }
+            if (resolveForcingChain(toSolve, graph, starts, count, reached, common, "Cell Forcing Chain")) {
+                return true;
+            }
+        }
+
+        // unit forcing chains
+        for (int unit = 0; unit < PeerUtil.UNITS; unit++) {
+            int[] cells = PeerUtil.getUnitCells(unit);
+            for (int value = 1; value <= N; value++) {
+                int places = toSolve.getValuePlaces(unit, value);
+                if (Integer.bitCount(places) < 2) {
+                    continue;
+                }
+                int count = 0;
+                for (int rest = places; rest != 0; rest &= rest - 1) {
+                    starts[count++] = cells[Integer.numberOfTrailingZeros(rest)] * N + value - 1;
+                }
+                if (resolveForcingChain(toSolve, graph, starts, count, reached, common, "Unit Forcing Chain")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolve a forcing chain from candidates of which one has to be true.
+     *
+     * @param toSolve the sudoku to solve
+     * @param graph the implication graph
+     * @param starts the start candidates
+     * @param count the number of start candidates
+     * @param reached the bit set for reached literals
+     * @param common the bit set for literals reached from all start candidates
+     * @param technique the technique name used for logging
+     * @return true, if successful
+     * @throws SolvingException the solving exception
+     */
+    private boolean resolveForcingChain(Sudoku toSolve, ImplicationGraph graph, int[] starts, int count,
+            long[] reached, long[] common, String technique) throws SolvingException {
+        int changes = 0;
+        Arrays.fill(common, -1L);
+        for (int i = 0; i < count; i++) {
+            graph.propagate(starts[i], true, maxChainDepth, reached);
+            for (int j = 0; j < reached.length; j++) {
+                common[j] &= reached[j];
+                // candidate both true and false in one branch
+                long contradiction = reached[j] & (reached[j] >>> 1) & 0x5555555555555555L;
+                if (contradiction != 0 && removeCandidate(toSolve, starts[i] / N, starts[i] % N + 1,
+                        technique + " contradiction")) {
+                    return true;
+                }
+            }
+        }
+
+        for (int node = 0; node < ImplicationGraph.CANDIDATES; node++) {
+            if (ImplicationGraph.contains(common, node * 2 + 1)) {
+                if (placeValue(toSolve, node / N, node % N + 1, technique)) {
+                    changes++;
+                }
+            } else if (ImplicationGraph.contains(common, node * 2)) {
+                if (removeCandidate(toSolve, node / N, node % N + 1, technique)) {
+                    changes++;
+                }
+            }
+        }
+
+        if (changes > 0) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if two different candidates (cell*N + value-1) can not both be true.
+     *
+     * @param first the first candidate
+     * @param second the second candidate
+     * @return true, if candidates are weakly linked
+     */
+    private boolean isWeaklyLinked(int first, int second) {
+        if (first / N == second / N) {
+            return first != second;
+        }
+        return first % N == second % N && PeerUtil.sees(first / N, second / N);
+    }
+
+    /**
+     * Gets the strong link graph of a sudoku, which is kept between steps
+     * as long as the same sudoku gets solved.
+     *
+     * @param toSolve the sudoku to solve
+     * @return the strong link graph
+     */
+    protected StrongLinkGraph getStrongLinkGraph(Sudoku toSolve) {
+        if (strongLinkGraph == null || strongLinkGraph.getSudoku() != toSolve) {
+            strongLinkGraph = new StrongLinkGraph(toSolve);
+        }
+        return strongLinkGraph;
+    }
+
+    /**
+     * Gets the change tracker of a sudoku, which is kept between steps
+     * as long as the same sudoku gets solved.
+     *
+     * @param toSolve the sudoku to solve
+     * @return the change tracker
+     */
+    protected ChangeTracker getChangeTracker(Sudoku toSolve) {
+        if (changeTracker == null || changeTracker.getSudoku() != toSolve) {
+            changeTracker = new ChangeTracker(toSolve, CHANNELS);
+        }
+        return changeTracker;
+    }
+
+    /**
+     * Gets the almost locked set cache of a sudoku, which is kept between
+     * steps as long as the same sudoku gets solved.
+     *
+     * @param toSolve the sudoku to solve
+     * @return the almost locked set cache
+     */
+    protected AlmostLockedSetCache getAlmostLockedSetCache(Sudoku toSolve) {
+        if (almostLockedSetCache == null || almostLockedSetCache.getSudoku() != toSolve) {
+            almostLockedSetCache = new AlmostLockedSetCache(toSolve);
+            alsXzRound = 0;
+            alsXyWingRound = 0;
+        }
+        return almostLockedSetCache;
+    }
+
+    /**
+     * Gets the implication graph of a sudoku, which is kept between steps
+     * as long as the same sudoku gets solved.
+     *
+     * @param toSolve the sudoku to solve
+     * @return the implication graph
+     */
+    protected ImplicationGraph getImplicationGraph(Sudoku toSolve) {
+        if (implicationGraph == null || implicationGraph.getSudoku() != toSolve) {
+            implicationGraph = new ImplicationGraph(toSolve);
+        }
+        return implicationGraph;
+    }
+
+    /**
+     * Gets a copy of the bivalue cells (row*N + column) of a sudoku.
+     *
+     * @param toSolve the sudoku to solve
+     * @return the bivalue cells
+     */
+    protected int[] getBivalueCells(Sudoku toSolve) {
+        int[] cells = new int[toSolve.getBivalueCellCount()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = toSolve.getBivalueCell(i);
+        }
+        return cells;
+    }
+
+    /**
+     * Gets the candidate mask of a cell (row*N + column).
+     *
+     * @param toSolve the sudoku to solve
+     * @param cell the cell
+     * @return the candidate mask
+     */
+    protected int getCandidateMask(Sudoku toSolve, int cell) {
+        return toSolve.getCandidateMask(cell / N, cell % N);
+    }
+
+    /**
+     * Removes value from possible values of an unsolved cell (row*N + column).
+     *
+     * @param toSolve the sudoku to solve
+     * @param cell the cell
+     * @param value the value
+     * @param technique the technique name used for logging
+     * @return true, if value was possible and got removed
+     */
+    protected boolean removeCandidate(Sudoku toSolve, int cell, int value, String technique) {
+        int row = cell / N;
+        int col = cell % N;
+        if (toSolve.getCellValue(row, col) != 0 || !toSolve.isCellValuePossible(row, col, value)) {
+            return false;
+        }
+        toSolve.setCellValueAsImpossible(row, col, value);
+        recordElimination(cell, value);
+        logger.debug(technique + " removing [" + row + "][" + col + "] for " + value);
+        return true;
+    }
+
+    /**
+     * Places value into an unsolved cell (row*N + column), checking it against
+     * the solution when the solution is known.
+     *
+     * @param toSolve the sudoku to solve
+     * @param cell the cell
+     * @param value the value
+     * @param technique the technique name used for logging
+     * @return true, if value got placed
+     * @throws SolvingException the solving exception
+     */
+    protected boolean placeValue(Sudoku toSolve, int cell, int value, String technique) throws SolvingException {
+        int row = cell / N;
+        int col = cell % N;
+        if (toSolve.getCellValue(row, col) != 0 || !toSolve.isCellValuePossible(row, col, value)) {
+            return false;
+        }
+        if (this.sudoku.getSolution() != null && this.sudoku.getSolution().getCellValue(row, col) != value) {
+            logger.error("Wrong Value Solved by " + technique + " [" + row + "][" + col + "] with " + value);
+            throw new SolvingException(this);
+        }
+        logger.debug("Solved by " + technique + " [" + row + "][" + col + "] with " + value);
+        recordPlacement(cell, value);
+        toSolve.setCellValue(row, col, value);
+        return true;
+    }
+
+    /**
+     * Records a placed value to the current step and the solve path.
+     *
+     * @param cell the cell (row*N + column)
+     * @param value the value
+     */
+    protected void recordPlacement(int cell, int value) {
+        if (this.step != null) {
+            this.step.addPlacement(cell, value);
+        }
+        if (this.path != null) {
+            this.path.addPlacement(cell, value);
+        }
+    }
+
+    /**
+     * Records a removed candidate to the current step and the solve path.
+     *
+     * @param cell the cell (row*N + column)
+     * @param value the value
+     */
+    protected void recordElimination(int cell, int value) {
+        if (this.step != null) {
+            this.step.addElimination(cell, value);
+        }
+        if (this.path != null) {
+            this.path.addElimination(cell, value);
+        }
+    }
+
+    /**
+     * Checks if a step is being looked for and the current technique already
+     * made a deduction, so it can stop.
+     *
+     * @return true, if step is found
+     */
+    protected boolean isStepFound() {
+        return this.step != null && !this.step.isEmpty();
+    }
+
 	/**
 	 * Gets the time limit.
 	 *
@@ -798,6 +1899,24 @@ public abstract class BaseSolver {
 		this.maxSolutions = maxSolutions;
 	}
 	
+	/**
+	 * Gets the maximum number of links in a chain.
+	 *
+	 * @return the max chain depth
+	 */
+	public int getMaxChainDepth() {
+		return maxChainDepth;
+	}
+
+	/**
+	 * Sets the maximum number of links in a chain.
+	 *
+	 * @param maxChainDepth the new max chain depth
+	 */
+	public void setMaxChainDepth(int maxChainDepth) {
+		this.maxChainDepth = maxChainDepth;
+	}
+	
 	/**
 	 * Gets the duration.
 	 *
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.Arrays;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.util.PeerUtil;
+
+/**
+ * The Class ChangeTracker remembers unit and value versions of a sudoku
+ * each technique (channel) last examined, so a technique only examines
+ * units or values that changed since. A technique that found nothing in
+ * a unit will find nothing there again until the unit changes. A technique
+ * that stops before examining a unit to the end forgets it, since the
+ * rest of the unit may still hold deductions.
+ *
+ * @author Martin Furek
+ */
+public class ChangeTracker {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** The sudoku. */
+    private Sudoku sudoku;
+
+    /** Last examined unit versions of each channel (index channel*27 + unit). */
+    private int[] units;
+
+    /** Last examined value versions of each channel (index channel*9 + value-1). */
+    private int[] values;
+
+    /** Number of skipped examinations. */
+    private long skipped = 0;
+
+    /**
+     * Instantiates a new change tracker.
+     *
+     * @param sudoku the sudoku
+     * @param channels the number of channels (techniques)
+     */
+    public ChangeTracker(Sudoku sudoku, int channels) {
+        this.sudoku = sudoku;
+        this.units = new int[channels * PeerUtil.UNITS];
+        this.values = new int[channels * N];
+        Arrays.fill(this.units, -1);
+        Arrays.fill(this.values, -1);
+    }
+
+    /**
+     * Check if a unit changed since the channel examined it last and mark it
+     * as examined. Changes made while examining keep the unit changed.
+     *
+     * @param channel the channel
+     * @param unit the unit
+     * @return true, if unit needs to be examined
+     */
+    public boolean isUnitChanged(int channel, int unit) {
+        int version = sudoku.getUnitVersion(unit);
+        int index = channel * PeerUtil.UNITS + unit;
+        if (units[index] == version) {
+            skipped++;
+            return false;
+        }
+        units[index] = version;
+        return true;
+    }
+
+    /**
+     * Check if a value changed since the channel examined it last and mark it
+     * as examined. Changes made while examining keep the value changed.
+     *
+     * @param channel the channel
+     * @param value the value
+     * @return true, if value needs to be examined
+     */
+    public boolean isValueChanged(int channel, int value) {
+        int version = sudoku.getValueVersion(value);
+        int index = channel * N + value - 1;
+        if (values[index] == version) {
+            skipped++;
+            return false;
+        }
+        values[index] = version;
+        return true;
+    }
+
+    /**
+     * Forget that the channel examined a unit, so it is examined again. Used
+     * when a technique stops in the middle of a unit after finding a step.
+     *
+     * @param channel the channel
+     * @param unit the unit
+     */
+    public void forgetUnit(int channel, int unit) {
+        units[channel * PeerUtil.UNITS + unit] = -1;
+    }
+
+    /**
+     * Forget that the channel examined a value, so it is examined again.
+     *
+     * @param channel the channel
+     * @param value the value
+     */
+    public void forgetValue(int channel, int value) {
+        values[channel * N + value - 1] = -1;
+    }
+
+    /**
+     * Gets the number of skipped examinations.
+     *
+     * @return the skipped examinations
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Gets the sudoku.
+     *
+     * @return the sudoku
+     */
+    public Sudoku getSudoku() {
+        return sudoku;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
+
+/**
+ * Built in human techniques in their default order. The cost orders the
+ * adaptive schedule, while the weight rates puzzles: every weight of a tier
+ * is above all weights of easier tiers.
+ *
+ * @author Martin Furek
+ */
+public enum HumanTechnique implements Technique {
+
+    /** Hidden singles in grids, rows and columns. */
+    BASIC("Basic", SudokuDifficulty.EASY, 1, 1, TechniqueType.BASIC) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) throws SolvingException {
+            return solver.solveBasic(sudoku);
+        }
+    },
+
+    /** Locked candidates in grids. */
+    GRID_LOCKED_CANDIDATES("Locked Candidates Grid", SudokuDifficulty.HARD, 2, 2, TechniqueType.LOCKED_CANDIDATES) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveGridLockedCandidates(sudoku);
+        }
+    },
+
+    /** Locked candidates in rows and columns. */
+    LINE_LOCKED_CANDIDATES("Locked Candidates Rows and Cols", SudokuDifficulty.HARD, 2, 2, TechniqueType.LOCKED_CANDIDATES) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveRowAndColLockedCandidates(sudoku);
+        }
+    },
+
+    /** X-Wing and Skyscraper. */
+    X_WING_AND_SKYSCRAPER("X-Wing and Skyscraper", SudokuDifficulty.VERY_HARD, 3, 3, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveAdvancedXWingAndSkyscraper(sudoku);
+        }
+    },
+
+    /** 2-String Kite. */
+    TWO_STRING_KITE("2-String Kite", SudokuDifficulty.VERY_HARD, 3, 3, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveTwoStringKite(sudoku);
+        }
+    },
+
+    /** Turbot Fish. */
+    TURBOT_FISH("Turbot Fish", SudokuDifficulty.VERY_HARD, 3, 3, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveTurbotFish(sudoku);
+        }
+    },
+
+    /** Simple Coloring. */
+    SIMPLE_COLORING("Simple Coloring", SudokuDifficulty.VERY_HARD, 4, 3, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveSimpleColoring(sudoku);
+        }
+    },
+
+    /** XY-Wing. */
+    XY_WING("XY-Wing", SudokuDifficulty.VERY_HARD, 4, 4, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveXYWing(sudoku);
+        }
+    },
+
+    /** XYZ-Wing. */
+    XYZ_WING("XYZ-Wing", SudokuDifficulty.VERY_HARD, 4, 4, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveXYZWing(sudoku);
+        }
+    },
+
+    /** W-Wing. */
+    W_WING("W-Wing", SudokuDifficulty.VERY_HARD, 5, 3, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveWWing(sudoku);
+        }
+    },
+
+    /** Unique Rectangles types 1-4. */
+    UNIQUE_RECTANGLES("Unique Rectangles", SudokuDifficulty.VERY_HARD, 4, 3, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveUniqueRectangles(sudoku);
+        }
+
+        @Override
+        public boolean isUniquenessBased() {
+            return true;
+        }
+    },
+
+    /** Bivalue universal grave + 1. */
+    BUG_PLUS_ONE("BUG+1", SudokuDifficulty.VERY_HARD, 2, 3, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) throws SolvingException {
+            return solver.solveBugPlusOne(sudoku);
+        }
+
+        @Override
+        public boolean isUniquenessBased() {
+            return true;
+        }
+    },
+
+    /** ALS-XZ. */
+    ALS_XZ("ALS-XZ", SudokuDifficulty.VERY_HARD, 8, 6, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveAlsXz(sudoku);
+        }
+    },
+
+    /** ALS-XY-Wing. */
+    ALS_XY_WING("ALS-XY-Wing", SudokuDifficulty.VERY_HARD, 10, 7, TechniqueType.ADVANCED) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) {
+            return solver.solveAlsXyWing(sudoku);
+        }
+    },
+
+    /** Alternating inference chains. */
+    ALTERNATING_INFERENCE_CHAINS("Alternating Inference Chains", SudokuDifficulty.EXTREME, 20, 20, TechniqueType.CHAIN) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) throws SolvingException {
+            return solver.solveAlternatingInferenceChains(sudoku);
+        }
+    },
+
+    /** Cell and unit forcing chains. */
+    FORCING_CHAINS("Forcing Chains", SudokuDifficulty.EXTREME, 40, 40, TechniqueType.CHAIN) {
+        @Override
+        public boolean apply(BaseSolver solver, Sudoku sudoku) throws SolvingException {
+            return solver.solveForcingChains(sudoku);
+        }
+    };
+
+    /** The name. */
+    private String name;
+
+    /** The difficulty tier. */
+    private SudokuDifficulty difficulty;
+
+    /** The relative cost. */
+    private int cost;
+
+    /** The difficulty weight. */
+    private int weight;
+
+    /** The type. */
+    private TechniqueType type;
+
+    /**
+     * Instantiates a new human technique.
+     *
+     * @param name the name
+     * @param difficulty the difficulty tier
+     * @param cost the relative cost
+     * @param weight the difficulty weight
+     * @param type the type
+     */
+    HumanTechnique(String name, SudokuDifficulty difficulty, int cost, int weight, TechniqueType type) {
+        this.name = name;
+        this.difficulty = difficulty;
+        this.cost = cost;
+        this.weight = weight;
+        this.type = type;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public SudokuDifficulty getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public TechniqueType getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isUniquenessBased() {
+        return false;
+    }
+}
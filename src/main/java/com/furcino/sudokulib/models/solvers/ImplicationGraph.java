@@ -0,0 +1,248 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.Arrays;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.util.PeerUtil;
+
+/**
+ * The Class ImplicationGraph holds implications between candidates of a sudoku,
+ * where a candidate (node) is cell*9 + value-1 and a literal is node*2 + 1
+ * when the candidate is true (on) and node*2 when it is false (off).
+ *
+ * A true candidate turns off all weakly linked candidates (same cell or same
+ * value in a peer). A false candidate turns on its strongly linked candidates
+ * (other value of a bivalue cell or other place of a value with two places in
+ * a unit). Strong links of a candidate are memoized together with the state
+ * they were built from, so they are only rebuilt when that state changes.
+ *
+ * @author Martin Furek
+ */
+public class ImplicationGraph {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** Number of candidates (nodes). */
+    public static final int CANDIDATES = 81 * 9;
+
+    /** Number of literals. */
+    public static final int LITERALS = CANDIDATES * 2;
+
+    /** Weak links of a candidate (same cell or same value in a peer). */
+    private static final int[][] WEAK_LINKS = new int[CANDIDATES][];
+
+    static {
+        for (int cell = 0; cell < PeerUtil.CELLS; cell++) {
+            for (int k = 0; k < N; k++) {
+                int[] links = new int[N - 1 + 20];
+                int count = 0;
+                for (int other = 0; other < N; other++) {
+                    if (other != k) {
+                        links[count++] = cell * N + other;
+                    }
+                }
+                for (int peer : PeerUtil.getPeers(cell)) {
+                    links[count++] = peer * N + k;
+                }
+                WEAK_LINKS[cell * N + k] = links;
+            }
+        }
+    }
+
+    /** The sudoku. */
+    private Sudoku sudoku;
+
+    /** Memoized strong links of a candidate. */
+    private int[][] strongLinks = new int[CANDIDATES][];
+
+    /** State (cell mask and places in the three units) strong links were built from. */
+    private int[] strongLinkStates = new int[CANDIDATES * 4];
+
+    /** Number of strong link lookups answered from memo. */
+    private long memoHits = 0;
+
+    /** Literals waiting in propagation. */
+    private int[] queue = new int[LITERALS];
+
+    /** Depth of literals in propagation. */
+    private int[] depths = new int[LITERALS];
+
+    /**
+     * Instantiates a new implication graph.
+     *
+     * @param sudoku the sudoku
+     */
+    public ImplicationGraph(Sudoku sudoku) {
+        this.sudoku = sudoku;
+    }
+
+    /**
+     * Check if candidate is possible in an unsolved cell.
+     *
+     * @param node the candidate
+     * @return true, if candidate is possible
+     */
+    public boolean isCandidate(int node) {
+        int cell = node / N;
+        return sudoku.getCellValue(cell / N, cell % N) == 0
+                && (sudoku.getCandidateMask(cell / N, cell % N) & (1 << (node % N))) != 0;
+    }
+
+    /**
+     * Gets the weak links of a candidate, which may include candidates that
+     * are no longer possible.
+     *
+     * @param node the candidate
+     * @return the weak links
+     */
+    public int[] getWeakLinks(int node) {
+        return WEAK_LINKS[node];
+    }
+
+    /**
+     * Gets the strong links of a candidate.
+     *
+     * @param node the candidate
+     * @return the strong links
+     */
+    public int[] getStrongLinks(int node) {
+        int cell = node / N;
+        int value = node % N + 1;
+        int[] units = PeerUtil.getCellUnits(cell);
+        int mask = sudoku.getCandidateMask(cell / N, cell % N);
+        int rowPlaces = sudoku.getValuePlaces(units[0], value);
+        int colPlaces = sudoku.getValuePlaces(units[1], value);
+        int gridPlaces = sudoku.getValuePlaces(units[2], value);
+
+        int state = node * 4;
+        if (strongLinks[node] != null && strongLinkStates[state] == mask && strongLinkStates[state + 1] == rowPlaces
+                && strongLinkStates[state + 2] == colPlaces && strongLinkStates[state + 3] == gridPlaces) {
+            memoHits++;
+            return strongLinks[node];
+        }
+
+        int[] links = new int[4];
+        int count = 0;
+        if (isCandidate(node)) {
+            if (Integer.bitCount(mask) == 2) {
+                links[count++] = cell * N + Integer.numberOfTrailingZeros(mask & ~(1 << (node % N)));
+            }
+            int[] places = {rowPlaces, colPlaces, gridPlaces};
+            for (int i = 0; i < 3; i++) {
+                if (Integer.bitCount(places[i]) == 2) {
+                    int[] cells = PeerUtil.getUnitCells(units[i]);
+                    int first = cells[Integer.numberOfTrailingZeros(places[i])];
+                    int second = cells[31 - Integer.numberOfLeadingZeros(places[i])];
+                    int other = (first == cell ? second : first) * N + node % N;
+                    boolean known = false;
+                    for (int j = 0; j < count; j++) {
+                        known |= links[j] == other;
+                    }
+                    if (!known) {
+                        links[count++] = other;
+                    }
+                }
+            }
+        }
+
+        strongLinks[node] = Arrays.copyOf(links, count);
+        strongLinkStates[state] = mask;
+        strongLinkStates[state + 1] = rowPlaces;
+        strongLinkStates[state + 2] = colPlaces;
+        strongLinkStates[state + 3] = gridPlaces;
+        return strongLinks[node];
+    }
+
+    /**
+     * Propagate a literal through implications up to a maximum number of links
+     * and mark every reached literal (including the start) in a bit set.
+     *
+     * @param node the candidate
+     * @param on true if candidate is assumed true, false if assumed false
+     * @param maxDepth the maximum number of links
+     * @param reached the bit set of reached literals (LITERALS bits), cleared first
+     * @return the reached literals
+     */
+    public long[] propagate(int node, boolean on, int maxDepth, long[] reached) {
+        Arrays.fill(reached, 0);
+        int start = node * 2 + (on ? 1 : 0);
+        int head = 0;
+        int tail = 0;
+        queue[tail] = start;
+        depths[tail++] = 0;
+        reached[start >> 6] |= 1L << (start & 63);
+
+        while (head < tail) {
+            int literal = queue[head];
+            int depth = depths[head++];
+            if (depth >= maxDepth) {
+                continue;
+            }
+            boolean isOn = (literal & 1) == 1;
+            int[] links = isOn ? getWeakLinks(literal >> 1) : getStrongLinks(literal >> 1);
+            for (int other : links) {
+                int next = other * 2 + (isOn ? 0 : 1);
+                if ((reached[next >> 6] & (1L << (next & 63))) != 0 || !isCandidate(other)) {
+                    continue;
+                }
+                reached[next >> 6] |= 1L << (next & 63);
+                queue[tail] = next;
+                depths[tail++] = depth + 1;
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Creates an empty bit set for literals.
+     *
+     * @return the bit set
+     */
+    public static long[] createLiteralSet() {
+        return new long[(LITERALS + 63) / 64];
+    }
+
+    /**
+     * Check if a literal is in a bit set.
+     *
+     * @param literals the bit set
+     * @param literal the literal
+     * @return true, if literal is in set
+     */
+    public static boolean contains(long[] literals, int literal) {
+        return (literals[literal >> 6] & (1L << (literal & 63))) != 0;
+    }
+
+    /**
+     * Gets the number of strong link lookups answered from memo.
+     *
+     * @return the memo hits
+     */
+    public long getMemoHits() {
+        return memoHits;
+    }
+
+    /**
+     * Gets the sudoku.
+     *
+     * @return the sudoku
+     */
+    public Sudoku getSudoku() {
+        return sudoku;
+    }
+}
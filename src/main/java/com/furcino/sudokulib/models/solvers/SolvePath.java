@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Class SolvePath records successful technique applications of a solve
+ * in a single int array. Each step is a header (technique id << 16 | number
+ * of changes) followed by its changes, where a change is a candidate
+ * (cell*9 + value-1) with the PLACEMENT bit set for placed values.
+ *
+ * The rating is updated as steps are recorded: the integer part is the
+ * weight of the hardest technique used and the fraction grows with the total
+ * weight of all steps (capped at 999), so puzzles needing the same technique
+ * can still be told apart.
+ *
+ * @author Martin Furek
+ */
+public class SolvePath {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** Flag of a placed value in a change. */
+    public static final int PLACEMENT = 1 << 10;
+
+    /** Mask of the candidate in a change. */
+    private static final int CANDIDATE_MASK = PLACEMENT - 1;
+
+    /** Headers and changes. */
+    private int[] entries = new int[128];
+
+    /** Number of entries. */
+    private int size = 0;
+
+    /** Position of the header of the step being recorded, or -1. */
+    private int stepStart = -1;
+
+    /** Techniques by id. */
+    private Technique[] techniques = new Technique[8];
+
+    /** Number of techniques. */
+    private int techniqueCount = 0;
+
+    /** Number of steps. */
+    private int steps = 0;
+
+    /** Weight of the hardest technique used. */
+    private int hardestWeight = 0;
+
+    /** Total weight of all steps. */
+    private long totalWeight = 0;
+
+    /**
+     * Starts recording a step.
+     *
+     * @param technique the technique
+     */
+    public void beginStep(Technique technique) {
+        ensureCapacity(1);
+        stepStart = size;
+        entries[size++] = getTechniqueId(technique) << 16;
+    }
+
+    /**
+     * Ends the step being recorded. Steps without success are dropped.
+     *
+     * @param success true, if the technique made progress
+     */
+    public void endStep(boolean success) {
+        if (stepStart < 0) {
+            return;
+        }
+        if (!success) {
+            size = stepStart;
+        } else {
+            entries[stepStart] |= size - stepStart - 1;
+            int weight = techniques[entries[stepStart] >>> 16].getWeight();
+            hardestWeight = Math.max(hardestWeight, weight);
+            totalWeight += weight;
+            steps++;
+        }
+        stepStart = -1;
+    }
+
+    /**
+     * Adds a placed value to the step being recorded.
+     *
+     * @param cell the cell (row*N + column)
+     * @param value the value
+     */
+    public void addPlacement(int cell, int value) {
+        if (stepStart >= 0) {
+            ensureCapacity(1);
+            entries[size++] = PLACEMENT | (cell * N + value - 1);
+        }
+    }
+
+    /**
+     * Adds a removed candidate to the step being recorded.
+     *
+     * @param cell the cell (row*N + column)
+     * @param value the value
+     */
+    public void addElimination(int cell, int value) {
+        if (stepStart >= 0) {
+            ensureCapacity(1);
+            entries[size++] = cell * N + value - 1;
+        }
+    }
+
+    /**
+     * Clears the path.
+     */
+    public void clear() {
+        size = 0;
+        stepStart = -1;
+        steps = 0;
+        hardestWeight = 0;
+        totalWeight = 0;
+    }
+
+    /**
+     * Gets the number of steps.
+     *
+     * @return the step count
+     */
+    public int getStepCount() {
+        return steps;
+    }
+
+    /**
+     * Gets the weight of the hardest technique used.
+     *
+     * @return the hardest weight
+     */
+    public int getHardestWeight() {
+        return hardestWeight;
+    }
+
+    /**
+     * Gets the total weight of all steps.
+     *
+     * @return the total weight
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Gets the rating (hardest weight plus total weight / 1000, capped below the next integer).
+     *
+     * @return the rating
+     */
+    public double getRating() {
+        return hardestWeight + Math.min(totalWeight, 999) / 1000.0;
+    }
+
+    /**
+     * Gets a technique by its id in this path.
+     *
+     * @param id the technique id
+     * @return the technique
+     */
+    public Technique getTechnique(int id) {
+        if (id < 0 || id >= techniqueCount) {
+            throw new IllegalArgumentException("Incorrect technique id (" + id + ")");
+        }
+        return techniques[id];
+    }
+
+    /**
+     * Gets a copy of the raw entries (headers and changes).
+     *
+     * @return the entries
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(entries, stepStart >= 0 ? stepStart : size);
+    }
+
+    /**
+     * Decodes the steps.
+     *
+     * @return the steps
+     */
+    public List<SolvingStep> getSteps() {
+        List<SolvingStep> result = new ArrayList<SolvingStep>(steps);
+        int end = stepStart >= 0 ? stepStart : size;
+        int index = 0;
+        while (index < end) {
+            int header = entries[index++];
+            SolvingStep step = new SolvingStep(techniques[header >>> 16]);
+            for (int i = 0; i < (header & 0xFFFF); i++) {
+                int change = entries[index++];
+                int candidate = change & CANDIDATE_MASK;
+                if ((change & PLACEMENT) != 0) {
+                    step.addPlacement(candidate / N, candidate % N + 1);
+                } else {
+                    step.addElimination(candidate / N, candidate % N + 1);
+                }
+            }
+            result.add(step);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the id of a technique, adding it when it is new.
+     *
+     * @param technique the technique
+     * @return the technique id
+     */
+    private int getTechniqueId(Technique technique) {
+        for (int id = 0; id < techniqueCount; id++) {
+            if (techniques[id] == technique) {
+                return id;
+            }
+        }
+        if (techniqueCount == techniques.length) {
+            techniques = Arrays.copyOf(techniques, techniqueCount * 2);
+        }
+        techniques[techniqueCount] = technique;
+        return techniqueCount++;
+    }
+
+    /**
+     * Grow entries if needed.
+     *
+     * @param extra the number of entries to add
+     */
+    private void ensureCapacity(int extra) {
+        if (size + extra > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(entries.length * 2, size + extra));
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SolvePath [steps=" + steps + ", entries=" + size + ", rating=" + getRating() + "]";
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.furcino.sudokulib.models.Cell;
+import com.furcino.sudokulib.models.Sudoku;
+
+/**
+ * The Class SolvingStep holds a single deduction of a technique: values placed
+ * into cells and candidates removed from cells. Both are kept as candidates
+ * (cell*9 + value-1, where cell is row*9 + column).
+ *
+ * @author Martin Furek
+ */
+public class SolvingStep {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** The technique. */
+    private Technique technique;
+
+    /** Placed candidates. */
+    private int[] placements = new int[4];
+
+    /** Number of placed candidates. */
+    private int placementCount = 0;
+
+    /** Removed candidates. */
+    private int[] eliminations = new int[8];
+
+    /** Number of removed candidates. */
+    private int eliminationCount = 0;
+
+    /**
+     * Instantiates a new solving step.
+     *
+     * @param technique the technique
+     */
+    public SolvingStep(Technique technique) {
+        this.technique = technique;
+    }
+
+    /**
+     * Adds a placed value.
+     *
+     * @param cell the cell (row*N + column)
+     * @param value the value
+     */
+    public void addPlacement(int cell, int value) {
+        if (placementCount == placements.length) {
+            placements = Arrays.copyOf(placements, placementCount * 2);
+        }
+        placements[placementCount++] = cell * N + value - 1;
+    }
+
+    /**
+     * Adds a removed candidate.
+     *
+     * @param cell the cell (row*N + column)
+     * @param value the value
+     */
+    public void addElimination(int cell, int value) {
+        if (eliminationCount == eliminations.length) {
+            eliminations = Arrays.copyOf(eliminations, eliminationCount * 2);
+        }
+        eliminations[eliminationCount++] = cell * N + value - 1;
+    }
+
+    /**
+     * Checks if the step has no placements and no eliminations.
+     *
+     * @return true, if empty
+     */
+    public boolean isEmpty() {
+        return placementCount == 0 && eliminationCount == 0;
+    }
+
+    /**
+     * Gets the technique.
+     *
+     * @return the technique
+     */
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    /**
+     * Gets the placed values.
+     *
+     * @return the placements
+     */
+    public List<Cell> getPlacements() {
+        return toCells(placements, placementCount);
+    }
+
+    /**
+     * Gets the removed candidates (cell value is the removed value).
+     *
+     * @return the eliminations
+     */
+    public List<Cell> getEliminations() {
+        return toCells(eliminations, eliminationCount);
+    }
+
+    /**
+     * Gets the cells changed by the step in row-major order.
+     *
+     * @return the cells (row*N + column)
+     */
+    public int[] getCells() {
+        long[] cellSet = new long[2];
+        for (int i = 0; i < placementCount; i++) {
+            cellSet[placements[i] / N >> 6] |= 1L << (placements[i] / N & 63);
+        }
+        for (int i = 0; i < eliminationCount; i++) {
+            cellSet[eliminations[i] / N >> 6] |= 1L << (eliminations[i] / N & 63);
+        }
+        int[] cells = new int[Long.bitCount(cellSet[0]) + Long.bitCount(cellSet[1])];
+        int index = 0;
+        for (int word = 0; word < 2; word++) {
+            for (long rest = cellSet[word]; rest != 0; rest &= rest - 1) {
+                cells[index++] = word * 64 + Long.numberOfTrailingZeros(rest);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Applies the step to a sudoku.
+     *
+     * @param sudoku the sudoku
+     */
+    public void apply(Sudoku sudoku) {
+        for (int i = 0; i < eliminationCount; i++) {
+            int cell = eliminations[i] / N;
+            sudoku.setCellValueAsImpossible(cell / N, cell % N, eliminations[i] % N + 1);
+        }
+        for (int i = 0; i < placementCount; i++) {
+            int cell = placements[i] / N;
+            sudoku.setCellValue(cell / N, cell % N, placements[i] % N + 1);
+        }
+    }
+
+    /**
+     * Convert candidates to cells.
+     *
+     * @param candidates the candidates
+     * @param count the number of candidates
+     * @return the cells
+     */
+    private static List<Cell> toCells(int[] candidates, int count) {
+        List<Cell> cells = new ArrayList<Cell>(count);
+        for (int i = 0; i < count; i++) {
+            int cell = candidates[i] / N;
+            cells.add(new Cell(cell / N, cell % N, candidates[i] % N + 1));
+        }
+        return cells;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        output.append(technique.getName()).append(":");
+        for (int i = 0; i < placementCount; i++) {
+            int cell = placements[i] / N;
+            output.append(" [" + cell / N + "][" + cell % N + "]=" + (placements[i] % N + 1));
+        }
+        for (int i = 0; i < eliminationCount; i++) {
+            int cell = eliminations[i] / N;
+            output.append(" [" + cell / N + "][" + cell % N + "]-" + (eliminations[i] % N + 1));
+        }
+        return output.toString();
+    }
+}
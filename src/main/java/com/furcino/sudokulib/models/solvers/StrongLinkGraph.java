@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.util.PeerUtil;
+
+/**
+ * The Class StrongLinkGraph holds strong links for each value of a sudoku,
+ * where a strong link is a unit with only two places for a value (one of
+ * the two cells has to hold the value).
+ *
+ * The sudoku keeps units with strong links up to date while candidates are
+ * removed, so links of a value are only decoded again when its units changed.
+ *
+ * @author Martin Furek
+ */
+public class StrongLinkGraph {
+
+    /** The sudoku dimensions. */
+    static int N = 9;
+
+    /** The sudoku. */
+    private Sudoku sudoku;
+
+    /** Units with strong links the links of a value (index value-1) were decoded from. */
+    private int[] decodedUnits = new int[N];
+
+    /** Strong links of a value (index value-1) as pairs of cells (start, end). */
+    private int[][] links = new int[N][];
+
+    /** Units of strong links of a value (index value-1). */
+    private int[][] linkUnits = new int[N][];
+
+    /**
+     * Instantiates a new strong link graph.
+     *
+     * @param sudoku the sudoku
+     */
+    public StrongLinkGraph(Sudoku sudoku) {
+        this.sudoku = sudoku;
+        for (int k = 0; k < N; k++) {
+            this.decodedUnits[k] = -1;
+        }
+    }
+
+    /**
+     * Decode strong links of a value if its units changed.
+     *
+     * @param value the value
+     */
+    private void update(int value) {
+        int units = sudoku.getStrongLinkUnits(value);
+        if (units == decodedUnits[value - 1]) {
+            return;
+        }
+
+        int count = Integer.bitCount(units);
+        int[] pairs = new int[count * 2];
+        int[] pairUnits = new int[count];
+        int index = 0;
+        for (int rest = units; rest != 0; rest &= rest - 1) {
+            int unit = Integer.numberOfTrailingZeros(rest);
+            int places = sudoku.getValuePlaces(unit, value);
+            int[] cells = PeerUtil.getUnitCells(unit);
+            pairUnits[index] = unit;
+            pairs[index * 2] = cells[Integer.numberOfTrailingZeros(places)];
+            pairs[index * 2 + 1] = cells[31 - Integer.numberOfLeadingZeros(places)];
+            index++;
+        }
+
+        links[value - 1] = pairs;
+        linkUnits[value - 1] = pairUnits;
+        decodedUnits[value - 1] = units;
+    }
+
+    /**
+     * Gets the strong links of a value as pairs of cells (start, end).
+     *
+     * @param value the value
+     * @return the links
+     */
+    public int[] getLinks(int value) {
+        update(value);
+        return links[value - 1];
+    }
+
+    /**
+     * Gets the units of strong links of a value (same order as links).
+     *
+     * @param value the value
+     * @return the link units
+     */
+    public int[] getLinkUnits(int value) {
+        update(value);
+        return linkUnits[value - 1];
+    }
+
+    /**
+     * Check if there is a strong link for a value between two cells.
+     *
+     * @param value the value
+     * @param first the first cell
+     * @param second the second cell
+     * @return true, if cells are strongly linked
+     */
+    public boolean isLinked(int value, int first, int second) {
+        int[] pairs = getLinks(value);
+        for (int i = 0; i < pairs.length; i += 2) {
+            if ((pairs[i] == first && pairs[i + 1] == second) || (pairs[i] == second && pairs[i + 1] == first)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the sudoku.
+     *
+     * @return the sudoku
+     */
+    public Sudoku getSudoku() {
+        return sudoku;
+    }
+}
@@ -14,6 +14,8 @@
  */
 package com.furcino.sudokulib.models.solvers;
 
+import java.util.List;
+
 import org.apache.log4j.Logger;
 
 import com.furcino.sudokulib.models.SudokuDifficulty;
@@ -34,6 +36,9 @@ public class SudokuHumanSolver extends BaseSolver {
 	/** Difficulty. */
     private SudokuDifficulty difficulty = SudokuDifficulty.NORMAL;
 
+    /** Registry of techniques to use. */
+    private TechniqueRegistry registry = TechniqueRegistry.getDefault();
+
     /** Number of basic solves. */
     protected int basicSolves = 0;
 
@@ -42,6 +47,24 @@ public class SudokuHumanSolver extends BaseSolver {
     
     /** Number of advanced techniques used. */
     protected int advancedSolves = 0;
+
+    /** Whether the puzzle is known to have a unique solution (enables uniqueness techniques). */
+    private boolean assumeUnique = false;
+
+    /** Number of chain techniques used. */
+    protected int chainSolves = 0;
+
+    /** Difficulty the result has to meet, solving stops once it can not (null for no limit). */
+    private SudokuDifficulty targetDifficulty;
+
+    /** Whether the last solve stopped because the target difficulty was exceeded. */
+    private boolean aborted = false;
+
+    /** Maximum number of basic solves of an easy puzzle. */
+    public static final int EASY_MAX_BASIC_SOLVES = 5;
+
+    /** Working copy of the last next step state with the step applied. */
+    private Sudoku stepSudoku;
 	
     /**
      * Constructor with default difficulty set to normal.
@@ -50,6 +73,7 @@ public class SudokuHumanSolver extends BaseSolver {
      */
 	public SudokuHumanSolver(Sudoku sudoku) {
 		super(sudoku);
+		this.path = new SolvePath();
 	}
 	
 	/**
@@ -61,6 +85,7 @@ public class SudokuHumanSolver extends BaseSolver {
     public SudokuHumanSolver(Sudoku sudoku, SudokuDifficulty difficulty) {
         super(sudoku);
         this.difficulty = difficulty;
+        this.path = new SolvePath();
     }
     
     /**
@@ -76,45 +101,46 @@ public class SudokuHumanSolver extends BaseSolver {
 		this.setTimeStart(System.currentTimeMillis());
 		boolean solving = true;
 		int loops = 0;
+		SudokuDifficulty ceiling = this.difficulty;
+		if (this.targetDifficulty != null && this.targetDifficulty.getNumVal() < ceiling.getNumVal()) {
+			// techniques above the target would exceed it anyway
+			ceiling = this.targetDifficulty;
+		}
+		List<Technique> schedule = this.registry.getSchedule(ceiling, this.assumeUnique);
+		this.aborted = false;
+		if (this.path != null) {
+			this.path.clear();
+		}
 		while (solving) {
 			if (System.currentTimeMillis() - getTimeStart() > getTimeLimit()) {
 				throw new TimeoutException();
 			}
 			loops++;
 			logger.debug("In loop: " + loops);
-			if(solveBasic(this.sudoku)) {
-			    solving = true;
-                basicSolves++;
-            } else {
-			    solving = false;
-            }
-			if (!solving && this.difficulty.getNumVal() >= SudokuDifficulty.HARD.getNumVal()) {
-                logger.debug("Using Locked Candidates Grid");
-                if (solveGridLockedCandidates(this.sudoku)) {
-                    solving = true;
-                    basicLockedCandidates++;
-                } else {
-                    solving = false;
-                }
-            }
-			if (!solving && this.difficulty.getNumVal() >= SudokuDifficulty.HARD.getNumVal()) {
-                logger.debug("Using Locked Candidates Rows and Cols");
-                if (solveRowAndColLockedCandidates(this.sudoku)) {
-                    solving = true;
-                    basicLockedCandidates++;
-                } else {
-                    solving = false;
-                }
-            }
-            if (!solving && this.difficulty.getNumVal() >= SudokuDifficulty.VERY_HARD.getNumVal()) {
-                logger.debug("Using X-Wing and Skyscraper");
-                if (solveAdvancedXWingAndSkyscraper(this.sudoku)) {
-                    solving = true;
-                    advancedSolves++;
-                } else {
-                    solving = false;
-                }
-            }
+			solving = false;
+			for (Technique technique : schedule) {
+				logger.debug("Using " + technique.getName());
+				long techniqueStart = System.nanoTime();
+				if (this.path != null) {
+					this.path.beginStep(technique);
+				}
+				boolean hit = technique.apply(this, this.sudoku);
+				if (this.path != null) {
+					this.path.endStep(hit);
+				}
+				this.registry.record(technique, this.difficulty, hit, System.nanoTime() - techniqueStart);
+				if (hit) {
+					solving = true;
+					count(technique);
+					if (this.targetDifficulty != null && isDifficultyExceeded(this.targetDifficulty)) {
+						logger.debug("Target difficulty " + this.targetDifficulty + " exceeded by " + technique.getName());
+						this.aborted = true;
+						this.setTimeFinished(System.currentTimeMillis());
+						return 0;
+					}
+					break;
+				}
+			}
 			if (this.sudoku.isSolved()) {
 				this.solutions.add(this.sudoku);
 				logger.debug("Setting Sudoku as Solved. Time[ms]: " + (System.currentTimeMillis() - getTimeStart()));
@@ -126,6 +152,218 @@ public class SudokuHumanSolver extends BaseSolver {
 		return 0;
 	}
 
+    /**
+     * Find the next deduction for a state of the puzzle (values and remaining
+     * candidates) without changing it. Techniques are tried in schedule order
+     * and the first one with a deduction stops after its first pattern, so
+     * only the work needed for a single step is done. When the state is the
+     * previous state with the previous step applied, the working copy and its
+     * caches are reused.
+     *
+     * @param sudoku the current state of the puzzle
+     * @return the step, or null if the puzzle is solved or no technique applies
+     * @throws SolvingException the solving exception
+     */
+    public SolvingStep nextStep(Sudoku sudoku) throws SolvingException {
+        if (sudoku.isSolved()) {
+            return null;
+        }
+        Sudoku working = this.stepSudoku;
+        if (working == null || !isSameState(working, sudoku)) {
+            working = new Sudoku(sudoku);
+            for (int cell = 0; cell < N * N; cell++) {
+                int removed = working.getCandidateMask(cell / N, cell % N) & ~sudoku.getCandidateMask(cell / N, cell % N);
+                for (; removed != 0; removed &= removed - 1) {
+                    working.setCellValueAsImpossible(cell / N, cell % N, Integer.numberOfTrailingZeros(removed) + 1);
+                }
+            }
+        }
+        this.stepSudoku = null;
+
+        SolvePath solvePath = this.path;
+        this.path = null;
+        try {
+            for (Technique technique : this.registry.getSchedule(this.difficulty, this.assumeUnique)) {
+                SolvingStep found = new SolvingStep(technique);
+                this.step = found;
+                if (technique.apply(this, working) && !found.isEmpty()) {
+                    logger.debug("Next step: " + found);
+                    this.stepSudoku = working;
+                    return found;
+                }
+            }
+        } finally {
+            this.step = null;
+            this.path = solvePath;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if two sudokus have the same values and candidates.
+     *
+     * @param one the first sudoku
+     * @param two the second sudoku
+     * @return true, if the state is the same
+     */
+    private static boolean isSameState(Sudoku one, Sudoku two) {
+        for (int cell = 0; cell < N * N; cell++) {
+            if (one.getCellValue(cell / N, cell % N) != two.getCellValue(cell / N, cell % N)
+                    || one.getCandidateMask(cell / N, cell % N) != two.getCandidateMask(cell / N, cell % N)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the techniques used so far already rule out a difficulty
+     * (its upper bounds are exceeded).
+     *
+     * @param target the difficulty
+     * @return true, if the difficulty can not be met anymore
+     */
+    public boolean isDifficultyExceeded(SudokuDifficulty target) {
+        switch (target) {
+            case EASY:
+                return basicSolves > EASY_MAX_BASIC_SOLVES || basicLockedCandidates > 0 || advancedSolves > 0
+                        || chainSolves > 0;
+            case NORMAL:
+                return basicLockedCandidates > 0 || advancedSolves > 0 || chainSolves > 0;
+            case HARD:
+                return advancedSolves > 0 || chainSolves > 0;
+            case VERY_HARD:
+                return chainSolves > 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if the last solve solved the puzzle and the techniques it used
+     * meet a difficulty.
+     *
+     * @param target the difficulty
+     * @return true, if the difficulty is met
+     */
+    public boolean meetsDifficulty(SudokuDifficulty target) {
+        if (aborted || !this.sudoku.isSolved() || isDifficultyExceeded(target)) {
+            return false;
+        }
+        switch (target) {
+            case EASY:
+                return true;
+            case NORMAL:
+                return basicSolves > EASY_MAX_BASIC_SOLVES;
+            case HARD:
+                return basicLockedCandidates > 0;
+            case VERY_HARD:
+                return advancedSolves > 0;
+            case EXTREME:
+                return chainSolves > 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gets the target difficulty.
+     *
+     * @return the target difficulty (null for no limit)
+     */
+    public SudokuDifficulty getTargetDifficulty() {
+        return targetDifficulty;
+    }
+
+    /**
+     * Sets the difficulty the result has to meet. Solving stops (returns 0)
+     * as soon as a technique pushes the result past its upper bounds, and
+     * techniques above it are not used.
+     *
+     * @param targetDifficulty the new target difficulty (null for no limit)
+     */
+    public void setTargetDifficulty(SudokuDifficulty targetDifficulty) {
+        this.targetDifficulty = targetDifficulty;
+    }
+
+    /**
+     * Checks if the last solve stopped because the target difficulty was exceeded.
+     *
+     * @return true, if aborted
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Increase the counter of a successful technique.
+     *
+     * @param technique the technique
+     */
+    private void count(Technique technique) {
+        switch (technique.getType()) {
+            case BASIC:
+                basicSolves++;
+                break;
+            case LOCKED_CANDIDATES:
+                basicLockedCandidates++;
+                break;
+            case ADVANCED:
+                advancedSolves++;
+                break;
+            case CHAIN:
+                chainSolves++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Gets the solve path of the last solve (null when not recorded).
+     *
+     * @return the solve path
+     */
+    public SolvePath getSolvePath() {
+        return this.path;
+    }
+
+    /**
+     * Sets the solve path to record to (null turns recording off).
+     *
+     * @param solvePath the new solve path
+     */
+    public void setSolvePath(SolvePath solvePath) {
+        this.path = solvePath;
+    }
+
+    /**
+     * Gets the rating of the last solve (see SolvePath).
+     *
+     * @return the rating, or 0 when the solve path is not recorded
+     */
+    public double getRating() {
+        return this.path != null ? this.path.getRating() : 0;
+    }
+
+    /**
+     * Gets the technique registry.
+     *
+     * @return the technique registry
+     */
+    public TechniqueRegistry getTechniqueRegistry() {
+        return registry;
+    }
+
+    /**
+     * Sets the technique registry (the shared default registry is used otherwise).
+     *
+     * @param registry the new technique registry
+     */
+    public void setTechniqueRegistry(TechniqueRegistry registry) {
+        this.registry = registry;
+    }
+
     /**
      * Gets the difficulty.
      *
@@ -144,6 +382,26 @@ public class SudokuHumanSolver extends BaseSolver {
         this.difficulty = difficulty;
     }
 
+    /**
+     * Checks if the puzzle is assumed to have a unique solution.
+     *
+     * @return true, if uniqueness techniques are used
+     */
+    public boolean isAssumeUnique() {
+        return assumeUnique;
+    }
+
+    /**
+     * Declares the puzzle to have a unique solution, which enables uniqueness
+     * techniques (unique rectangles, BUG+1). They give wrong results on
+     * puzzles with more solutions.
+     *
+     * @param assumeUnique true, if the puzzle has a unique solution
+     */
+    public void setAssumeUnique(boolean assumeUnique) {
+        this.assumeUnique = assumeUnique;
+    }
+
     /**
      * Gets the basic solves.
      *
@@ -171,4 +429,13 @@ public class SudokuHumanSolver extends BaseSolver {
         return advancedSolves;
     }
 
+    /**
+     * Gets the chain solves.
+     *
+     * @return the chain solves
+     */
+    public int getChainSolves() {
+        return chainSolves;
+    }
+
 }
@@ -140,29 +140,19 @@ public class SudokuPossibilityBasedSolver extends BaseSolver {
 		// sort proposals
 		Collections.sort(proposals);
 
-		// solve with proposals
+		// solve with the proposal with fewest possibilities, its values
+		// cover every solution so other cells do not need to be tried
 		if (proposals.size() > 0) {
 			int result = 0;
-			for (CellProposal proposal : proposals) {
-				int counter = 0;
-				for (int value = 1; value <= N; value++) {
-					if (proposal.isPossible(value)) {
-						// solve
-						result += this.solve(sudoku, new Cell(proposal.getRow(), proposal.getCol(), value), maxSolutions);
-
-						if (result > 0) {
-							// success check if enough solutions
-							if (result >= maxSolutions) {
-								return result;
-							}
-						} else {
-							// failure (if all possibilities vanish, this is not
-							// the right route)
-							counter++;
-							if (proposal.getNumberOfPossibilities() - counter == 0) {
-								return 0;
-							}
-						}
+			CellProposal proposal = proposals.get(0);
+			for (int value = 1; value <= N; value++) {
+				if (proposal.isPossible(value)) {
+					// solve
+					result += this.solve(sudoku, new Cell(proposal.getRow(), proposal.getCol(), value), maxSolutions);
+
+					// success check if enough solutions
+					if (result >= maxSolutions) {
+						return result;
 					}
 				}
 			}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
+
+/**
+ * A human solving technique that can be registered in a technique registry.
+ *
+ * @author Martin Furek
+ */
+public interface Technique {
+
+    /**
+     * Gets the name used for logging and statistics.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Gets the lowest difficulty the technique is used for.
+     *
+     * @return the difficulty tier
+     */
+    SudokuDifficulty getDifficulty();
+
+    /**
+     * Gets the relative cost of one application (1 for singles). Only used to
+     * order the adaptive schedule.
+     *
+     * @return the cost
+     */
+    int getCost();
+
+    /**
+     * Gets the difficulty weight used to rate puzzles (1 for singles). It must
+     * be above the weights of all techniques of easier tiers, so a puzzle
+     * needing a harder tier always rates higher.
+     *
+     * @return the weight
+     */
+    int getWeight();
+
+    /**
+     * Gets the kind of the technique.
+     *
+     * @return the type
+     */
+    TechniqueType getType();
+
+    /**
+     * Checks if the technique is only sound for puzzles with a unique solution.
+     *
+     * @return true, if uniqueness based
+     */
+    boolean isUniquenessBased();
+
+    /**
+     * Apply the technique once.
+     *
+     * @param solver the solver applying the technique
+     * @param sudoku the sudoku to solve
+     * @return true, if sudoku changed
+     * @throws SolvingException the solving exception
+     */
+    boolean apply(BaseSolver solver, Sudoku sudoku) throws SolvingException;
+}
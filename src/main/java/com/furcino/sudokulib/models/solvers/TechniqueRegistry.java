@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+/**
+ * Registry of human techniques ordered by difficulty tier, with usage
+ * statistics of each technique.
+ *
+ * By default techniques run in registration order. With adaptive ordering,
+ * techniques of the same tier run by time spent per hit once every one of
+ * them has enough applications (by declared cost before that), and
+ * techniques that never hit for a difficulty after enough applications are
+ * skipped. Tiers keep their order, so the same solver counters increase,
+ * but adaptive ordering may change the solve path and skipping may leave
+ * a puzzle unsolved that the full set would solve.
+ *
+ * @author Martin Furek
+ */
+public class TechniqueRegistry {
+
+    /** Applications of a technique needed before statistics are used for ordering. */
+    public static final long MIN_CALLS = 200;
+
+    /** Applications without hit after which a technique gets skipped. */
+    public static final long SKIP_CALLS = 5000;
+
+    /** Shared registry with built in techniques. */
+    private static final TechniqueRegistry DEFAULT = createDefault();
+
+    /** Registered techniques, ordered by difficulty tier. */
+    private List<Technique> techniques = new CopyOnWriteArrayList<Technique>();
+
+    /** Statistics of techniques. */
+    private ConcurrentHashMap<Technique, TechniqueStats> stats = new ConcurrentHashMap<Technique, TechniqueStats>();
+
+    /** Whether techniques get ordered by statistics. */
+    private volatile boolean adaptiveOrdering = false;
+
+    /**
+     * Gets the shared registry with built in techniques.
+     *
+     * @return the default registry
+     */
+    public static TechniqueRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a new registry with built in techniques.
+     *
+     * @return the registry
+     */
+    public static TechniqueRegistry createDefault() {
+        TechniqueRegistry registry = new TechniqueRegistry();
+        for (HumanTechnique technique : HumanTechnique.values()) {
+            registry.register(technique);
+        }
+        return registry;
+    }
+
+    /**
+     * Register a technique after all techniques of its or a lower difficulty tier.
+     *
+     * @param technique the technique
+     */
+    public synchronized void register(Technique technique) {
+        if (techniques.contains(technique)) {
+            throw new IllegalArgumentException("Technique already registered (" + technique.getName() + ")");
+        }
+        int index = 0;
+        while (index < techniques.size()
+                && techniques.get(index).getDifficulty().getNumVal() <= technique.getDifficulty().getNumVal()) {
+            index++;
+        }
+        techniques.add(index, technique);
+        stats.putIfAbsent(technique, new TechniqueStats());
+    }
+
+    /**
+     * Unregister a technique.
+     *
+     * @param technique the technique
+     * @return true, if technique was registered
+     */
+    public synchronized boolean unregister(Technique technique) {
+        return techniques.remove(technique);
+    }
+
+    /**
+     * Gets all registered techniques in registration order.
+     *
+     * @return the techniques
+     */
+    public List<Technique> getTechniques() {
+        return new ArrayList<Technique>(techniques);
+    }
+
+    /**
+     * Gets the techniques to run for a difficulty in the order to run them.
+     *
+     * @param difficulty the difficulty
+     * @param unique true, if uniqueness based techniques can be used
+     * @return the techniques
+     */
+    public List<Technique> getSchedule(final SudokuDifficulty difficulty, boolean unique) {
+        List<Technique> schedule = new ArrayList<Technique>();
+        for (Technique technique : techniques) {
+            if (technique.getDifficulty().getNumVal() > difficulty.getNumVal()
+                    || (technique.isUniquenessBased() && !unique)) {
+                continue;
+            }
+            if (adaptiveOrdering && isNeverHit(technique, difficulty)) {
+                continue;
+            }
+            schedule.add(technique);
+        }
+        if (!adaptiveOrdering) {
+            return schedule;
+        }
+
+        // order each tier by time per hit when known, else by declared cost
+        int start = 0;
+        while (start < schedule.size()) {
+            int end = start;
+            boolean known = true;
+            while (end < schedule.size() && schedule.get(end).getDifficulty() == schedule.get(start).getDifficulty()) {
+                known &= getStats(schedule.get(end)).getCalls(difficulty) >= MIN_CALLS;
+                end++;
+            }
+            Comparator<Technique> order;
+            if (known) {
+                order = new Comparator<Technique>() {
+                    @Override
+                    public int compare(Technique one, Technique two) {
+                        return Double.compare(getStats(one).getNanosPerHit(difficulty),
+                                getStats(two).getNanosPerHit(difficulty));
+                    }
+                };
+            } else {
+                order = new Comparator<Technique>() {
+                    @Override
+                    public int compare(Technique one, Technique two) {
+                        return Integer.compare(one.getCost(), two.getCost());
+                    }
+                };
+            }
+            Collections.sort(schedule.subList(start, end), order);
+            start = end;
+        }
+        return schedule;
+    }
+
+    /**
+     * Checks if a technique never hit for a difficulty after enough applications.
+     *
+     * @param technique the technique
+     * @param difficulty the difficulty
+     * @return true, if technique can be skipped
+     */
+    private boolean isNeverHit(Technique technique, SudokuDifficulty difficulty) {
+        TechniqueStats techniqueStats = getStats(technique);
+        return techniqueStats.getCalls(difficulty) >= SKIP_CALLS && techniqueStats.getHits(difficulty) == 0;
+    }
+
+    /**
+     * Record one application of a technique.
+     *
+     * @param technique the technique
+     * @param difficulty the difficulty the solver was running with
+     * @param hit true, if the sudoku changed
+     * @param time the time in nanoseconds
+     */
+    public void record(Technique technique, SudokuDifficulty difficulty, boolean hit, long time) {
+        getStats(technique).record(difficulty, hit, time);
+    }
+
+    /**
+     * Gets the statistics of a technique.
+     *
+     * @param technique the technique
+     * @return the stats
+     */
+    public TechniqueStats getStats(Technique technique) {
+        TechniqueStats techniqueStats = stats.get(technique);
+        if (techniqueStats == null) {
+            stats.putIfAbsent(technique, new TechniqueStats());
+            techniqueStats = stats.get(technique);
+        }
+        return techniqueStats;
+    }
+
+    /**
+     * Reset statistics of all techniques.
+     */
+    public void resetStats() {
+        for (TechniqueStats techniqueStats : stats.values()) {
+            techniqueStats.reset();
+        }
+    }
+
+    /**
+     * Checks if techniques get ordered by statistics.
+     *
+     * @return true, if adaptive ordering is used
+     */
+    public boolean isAdaptiveOrdering() {
+        return adaptiveOrdering;
+    }
+
+    /**
+     * Sets if techniques get ordered by statistics.
+     *
+     * @param adaptiveOrdering true, to use adaptive ordering
+     */
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+/**
+ * Usage statistics of a technique (applications, hits and time), kept per
+ * difficulty the solver was running with. Safe to update from several threads.
+ *
+ * @author Martin Furek
+ */
+public class TechniqueStats {
+
+    /** Applications per difficulty (index ordinal). */
+    private LongAdder[] calls = new LongAdder[SudokuDifficulty.values().length];
+
+    /** Applications that changed the sudoku per difficulty (index ordinal). */
+    private LongAdder[] hits = new LongAdder[SudokuDifficulty.values().length];
+
+    /** Time spent in nanoseconds per difficulty (index ordinal). */
+    private LongAdder[] nanos = new LongAdder[SudokuDifficulty.values().length];
+
+    /**
+     * Instantiates new technique stats.
+     */
+    public TechniqueStats() {
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = new LongAdder();
+            hits[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record one application.
+     *
+     * @param difficulty the difficulty the solver was running with
+     * @param hit true, if the sudoku changed
+     * @param time the time in nanoseconds
+     */
+    public void record(SudokuDifficulty difficulty, boolean hit, long time) {
+        int index = difficulty.ordinal();
+        calls[index].increment();
+        if (hit) {
+            hits[index].increment();
+        }
+        nanos[index].add(time);
+    }
+
+    /**
+     * Gets the applications for a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the calls
+     */
+    public long getCalls(SudokuDifficulty difficulty) {
+        return calls[difficulty.ordinal()].sum();
+    }
+
+    /**
+     * Gets the applications that changed the sudoku for a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the hits
+     */
+    public long getHits(SudokuDifficulty difficulty) {
+        return hits[difficulty.ordinal()].sum();
+    }
+
+    /**
+     * Gets the time spent in nanoseconds for a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the nanos
+     */
+    public long getNanos(SudokuDifficulty difficulty) {
+        return nanos[difficulty.ordinal()].sum();
+    }
+
+    /**
+     * Gets the applications for all difficulties.
+     *
+     * @return the calls
+     */
+    public long getCalls() {
+        return sum(calls);
+    }
+
+    /**
+     * Gets the applications that changed the sudoku for all difficulties.
+     *
+     * @return the hits
+     */
+    public long getHits() {
+        return sum(hits);
+    }
+
+    /**
+     * Gets the time spent in nanoseconds for all difficulties.
+     *
+     * @return the nanos
+     */
+    public long getNanos() {
+        return sum(nanos);
+    }
+
+    /**
+     * Gets the hit rate (hits per application) for a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the hit rate, 0 if never applied
+     */
+    public double getHitRate(SudokuDifficulty difficulty) {
+        long count = getCalls(difficulty);
+        return count == 0 ? 0 : (double) getHits(difficulty) / count;
+    }
+
+    /**
+     * Gets the average time in nanoseconds spent per hit for a difficulty.
+     *
+     * @param difficulty the difficulty
+     * @return the nanos per hit, infinite if never hit
+     */
+    public double getNanosPerHit(SudokuDifficulty difficulty) {
+        long count = getHits(difficulty);
+        return count == 0 ? Double.POSITIVE_INFINITY : (double) getNanos(difficulty) / count;
+    }
+
+    /**
+     * Reset all statistics.
+     */
+    public void reset() {
+        for (int i = 0; i < calls.length; i++) {
+            calls[i].reset();
+            hits[i].reset();
+            nanos[i].reset();
+        }
+    }
+
+    /**
+     * Sum counters of all difficulties.
+     *
+     * @param counters the counters
+     * @return the sum
+     */
+    private static long sum(LongAdder[] counters) {
+        long total = 0;
+        for (LongAdder counter : counters) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "TechniqueStats [calls=" + getCalls() + ", hits=" + getHits() + ", nanos=" + getNanos() + "]";
+    }
+}
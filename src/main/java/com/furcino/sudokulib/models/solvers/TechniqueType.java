@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+/**
+ * Kind of a human technique, deciding which counter of the human solver
+ * a successful step increases.
+ *
+ * @author Martin Furek
+ */
+public enum TechniqueType {
+
+    /** Singles (basic solves). */
+    BASIC,
+
+    /** Locked candidates (basic locked candidates). */
+    LOCKED_CANDIDATES,
+
+    /** Fish, wings, coloring, uniqueness and almost locked sets (advanced solves). */
+    ADVANCED,
+
+    /** Chains (chain solves). */
+    CHAIN
+}
@@ -15,6 +15,7 @@
 package com.furcino.sudokulib.util;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The Class CommonUtil.
@@ -24,12 +25,21 @@ import java.util.Random;
 public class CommonUtil {
 
     /**
-     * Shuffle array.
+     * Shuffle array with the random source of the current thread.
      *
      * @param array the array
      */
     public static void shuffleArray(int[] array) {
-        Random rnd = new Random();
+        shuffleArray(array, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Shuffle array with a given random source.
+     *
+     * @param array the array
+     * @param rnd the random source
+     */
+    public static void shuffleArray(int[] array, Random rnd) {
         for (int i = array.length - 1; i > 0; i--)
         {
             int index = rnd.nextInt(i + 1);
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.util;
+
+/**
+ * The Class PeerUtil holds precomputed units, peers and peer intersections
+ * for cells, where a cell is addressed as row*9 + column and units are
+ * numbered rows (0-8), columns (9-17) and grids (18-26).
+ *
+ * Returned arrays are shared and must not be modified.
+ *
+ * @author Martin Furek
+ */
+public class PeerUtil {
+
+    /** Number of cells. */
+    public static final int CELLS = 81;
+
+    /** Number of units (rows, columns and grids). */
+    public static final int UNITS = 27;
+
+    /** Cells of each unit. */
+    private static final int[][] UNIT_CELLS = new int[UNITS][9];
+
+    /** Units (row, column, grid) of each cell. */
+    private static final int[][] CELL_UNITS = new int[CELLS][3];
+
+    /** Peers (cells sharing a unit) of each cell. */
+    private static final int[][] PEERS = new int[CELLS][20];
+
+    /** Peers of each cell as a bit set (two longs). */
+    private static final long[][] PEER_MASKS = new long[CELLS][2];
+
+    /** Cells that are peers of both cells (index first*81 + second). */
+    private static final int[][] COMMON_PEERS = new int[CELLS * CELLS][];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / 9;
+            int col = cell % 9;
+            int grid = (row / 3) * 3 + col / 3;
+            CELL_UNITS[cell][0] = row;
+            CELL_UNITS[cell][1] = 9 + col;
+            CELL_UNITS[cell][2] = 18 + grid;
+            UNIT_CELLS[row][col] = cell;
+            UNIT_CELLS[9 + col][row] = cell;
+            UNIT_CELLS[18 + grid][(row % 3) * 3 + col % 3] = cell;
+        }
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            int peers = 0;
+            for (int other = 0; other < CELLS; other++) {
+                if (other != cell && shareUnit(cell, other)) {
+                    PEERS[cell][peers++] = other;
+                    PEER_MASKS[cell][other >> 6] |= 1L << (other & 63);
+                }
+            }
+        }
+
+        int[] common = new int[CELLS];
+        for (int first = 0; first < CELLS; first++) {
+            for (int second = 0; second < CELLS; second++) {
+                int count = 0;
+                for (int peer : PEERS[first]) {
+                    if (peer != second && sees(second, peer)) {
+                        common[count++] = peer;
+                    }
+                }
+                int[] result = new int[count];
+                System.arraycopy(common, 0, result, 0, count);
+                COMMON_PEERS[first * CELLS + second] = result;
+            }
+        }
+    }
+
+    /**
+     * Check if two different cells share a row, column or grid.
+     *
+     * @param first the first cell
+     * @param second the second cell
+     * @return true, if cells share a unit
+     */
+    private static boolean shareUnit(int first, int second) {
+        for (int i = 0; i < 3; i++) {
+            if (CELL_UNITS[first][i] == CELL_UNITS[second][i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the cells of a unit.
+     *
+     * @param unit the unit (0-26)
+     * @return the cells
+     */
+    public static int[] getUnitCells(int unit) {
+        return UNIT_CELLS[unit];
+    }
+
+    /**
+     * Gets the units (row, column, grid) of a cell.
+     *
+     * @param cell the cell
+     * @return the units
+     */
+    public static int[] getCellUnits(int cell) {
+        return CELL_UNITS[cell];
+    }
+
+    /**
+     * Gets the position (0-8) of a cell in one of its units.
+     *
+     * @param unit the unit (0-26)
+     * @param cell the cell
+     * @return the position
+     */
+    public static int getUnitPosition(int unit, int cell) {
+        if (unit < 9) {
+            return cell % 9;
+        } else if (unit < 18) {
+            return cell / 9;
+        }
+        return (cell / 9 % 3) * 3 + cell % 9 % 3;
+    }
+
+    /**
+     * Gets the 20 peers of a cell.
+     *
+     * @param cell the cell
+     * @return the peers
+     */
+    public static int[] getPeers(int cell) {
+        return PEERS[cell];
+    }
+
+    /**
+     * Gets the peers of a cell as a bit set of two longs (cells 0-63 and 64-80).
+     *
+     * @param cell the cell
+     * @return the peer mask
+     */
+    public static long[] getPeerMask(int cell) {
+        return PEER_MASKS[cell];
+    }
+
+    /**
+     * Check if two cells see each other (a cell does not see itself).
+     *
+     * @param first the first cell
+     * @param second the second cell
+     * @return true, if cells are peers
+     */
+    public static boolean sees(int first, int second) {
+        return (PEER_MASKS[first][second >> 6] & (1L << (second & 63))) != 0;
+    }
+
+    /**
+     * Gets the cells that see both cells.
+     *
+     * @param first the first cell
+     * @param second the second cell
+     * @return the common peers
+     */
+    public static int[] getCommonPeers(int first, int second) {
+        return COMMON_PEERS[first * CELLS + second];
+    }
+}
@@ -164,4 +164,68 @@ public class SudokuTest extends TestCase {
 		}
 	}
 
+
+	/**
+	 * Tests candidate masks and bivalue cells being kept up to date
+	 */
+	public void testBivalueCells() {
+		Sudoku sudoku = new Sudoku();
+		assertEquals(0, sudoku.getBivalueCellCount());
+		assertEquals(0x1FF, sudoku.getCandidateMask(0, 0));
+
+		for (int value = 3; value <= Sudoku.N; value++) {
+			sudoku.setCellValueAsImpossible(0, 0, value);
+		}
+		assertEquals(0x3, sudoku.getCandidateMask(0, 0));
+		assertEquals(2, sudoku.getCandidateCount(0, 0));
+		assertEquals(1, sudoku.getBivalueCellCount());
+		assertEquals(0, sudoku.getBivalueCell(0));
+
+		// setting a value in the same row leaves one possibility
+		sudoku.setCellValue(0, 8, 2);
+		assertEquals(0x1, sudoku.getCandidateMask(0, 0));
+		assertEquals(0, sudoku.getBivalueCellCount());
+
+		// copies rebuild the index from values
+		Sudoku copy = new Sudoku(SUDOKU);
+		int bivalue = 0;
+		for (int row = 0; row < Sudoku.N; row++) {
+			for (int col = 0; col < Sudoku.N; col++) {
+				if (copy.getCellValue(row, col) == 0 && copy.getCandidateCount(row, col) == 2) {
+					bivalue++;
+				}
+			}
+		}
+		assertEquals(bivalue, copy.getBivalueCellCount());
+	}
+
+	public void testUnitVersions() {
+		Sudoku sudoku = new Sudoku();
+		assertEquals(0, sudoku.getUnitVersion(0));
+
+		// row 0, column 0 and grid 0 change, other units do not
+		sudoku.setCellValueAsImpossible(0, 0, 5);
+		assertTrue(sudoku.getUnitVersion(0) > 0);
+		assertTrue(sudoku.getUnitVersion(9) > 0);
+		assertTrue(sudoku.getUnitVersion(18) > 0);
+		assertEquals(0, sudoku.getUnitVersion(1));
+		assertEquals(0, sudoku.getUnitVersion(26));
+
+		// removing a value twice is not a change
+		int version = sudoku.getUnitVersion(0);
+		sudoku.setCellValueAsImpossible(0, 0, 5);
+		assertEquals(version, sudoku.getUnitVersion(0));
+
+		sudoku.setCellValue(8, 8, 1);
+		assertTrue(sudoku.getUnitVersion(26) > 0);
+
+		// values lose places only when they are removed
+		version = sudoku.getValueVersion(7);
+		sudoku.setCellValueAsImpossible(0, 0, 7);
+		assertTrue(sudoku.getValueVersion(7) > version);
+		version = sudoku.getValueVersion(8);
+		sudoku.setCellValueAsImpossible(0, 0, 7);
+		assertEquals(version, sudoku.getValueVersion(8));
+	}
+
 }
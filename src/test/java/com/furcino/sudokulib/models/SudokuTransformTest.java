@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models;
+
+import java.util.Random;
+
+import com.furcino.sudokulib.TestHelper;
+import com.furcino.sudokulib.models.rating.DifficultyRater;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class SudokuTransformTest extends TestCase {
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public SudokuTransformTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(SudokuTransformTest.class);
+	}
+
+    public void testOperations() {
+        Sudoku sudoku = new Sudoku("000000000003000710070000403002090075040307680000000000034809260061004307000000000");
+        String original = sudoku.getStringRepresentation();
+
+        assertEquals(original, sudoku.transform(new SudokuTransform()).getStringRepresentation());
+        assertEquals(original, sudoku.transform(new SudokuTransform().transpose().transpose()).getStringRepresentation());
+        assertEquals(original, sudoku.transform(new SudokuTransform().rotate().rotate().rotate().rotate())
+                .getStringRepresentation());
+
+        // rotation moves the bottom left cell to the top left
+        Sudoku rotated = sudoku.transform(new SudokuTransform().rotate());
+        assertEquals(sudoku.getCellValue(8, 0), rotated.getCellValue(0, 0));
+        assertEquals(sudoku.getCellValue(7, 1), rotated.getCellValue(1, 1));
+        assertEquals(sudoku.getCellValue(1, 2), rotated.getCellValue(2, 7));
+
+        Sudoku transformed = sudoku.transform(new SudokuTransform().swapRows(1, 2).swapStacks(0, 2)
+                .relabel(new int[] {2, 3, 4, 5, 6, 7, 8, 9, 1}));
+        assertEquals(sudoku.getCellValue(1, 2) % 9 + 1, transformed.getCellValue(2, 8));
+        assertEquals(sudoku.getClueCount(), transformed.getClueCount());
+
+        try {
+            new SudokuTransform().swapRows(2, 3);
+            fail("Rows of different bands swapped");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new SudokuTransform().relabel(new int[] {1, 1, 3, 4, 5, 6, 7, 8, 9});
+            fail("Mapping is not a permutation");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRandomTransformKeepsSolutionAndDifficulty() throws Exception {
+        Random random = new Random(5);
+        DifficultyRater rater = new DifficultyRater(1);
+        for (Sudoku sudoku : TestHelper.getHardSudokus()) {
+            Sudoku transformed = sudoku.transform(SudokuTransform.random(random));
+            Sudoku solution = transformed.getSolution();
+            assertTrue(solution.isSolved());
+            for (int row = 0; row < 9; row++) {
+                for (int col = 0; col < 9; col++) {
+                    int value = transformed.getCellValue(row, col);
+                    assertTrue(value == 0 || value == solution.getCellValue(row, col));
+                }
+            }
+            assertEquals(rater.rate(sudoku).getDifficulty(), rater.rate(transformed).getDifficulty());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.util.PeerUtil;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class FullGridGeneratorTest extends TestCase {
+
+	final static Logger logger = Logger.getLogger(FullGridGeneratorTest.class);
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public FullGridGeneratorTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(FullGridGeneratorTest.class);
+	}
+
+    public void testGenerate() {
+        FullGridGenerator generator = new FullGridGenerator();
+        Random random = new Random(1);
+        Set<String> grids = new HashSet<String>();
+        long start = System.nanoTime();
+        for (int n = 0; n < 1000; n++) {
+            int[] cells = generator.generateCells(random);
+            for (int unit = 0; unit < 27; unit++) {
+                int mask = 0;
+                for (int cell : PeerUtil.getUnitCells(unit)) {
+                    mask |= 1 << (cells[cell] - 1);
+                }
+                assertEquals(511, mask);
+            }
+            grids.add(Arrays.toString(cells));
+        }
+        logger.info("Average time: " + (System.nanoTime() - start) / 1000 / 1000.0 + "[us]");
+        assertEquals(1000, grids.size());
+
+        // same seed gives the same grid
+        assertTrue(Arrays.equals(generator.generateCells(new Random(7)), generator.generateCells(new Random(7))));
+
+        Sudoku sudoku = generator.generate(random);
+        assertTrue(sudoku.isSolved());
+        assertEquals(81, sudoku.getClueCount());
+    }
+}
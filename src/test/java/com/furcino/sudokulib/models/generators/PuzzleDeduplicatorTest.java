@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.SudokuTransform;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PuzzleDeduplicatorTest extends TestCase {
+
+	final static Logger logger = Logger.getLogger(PuzzleDeduplicatorTest.class);
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public PuzzleDeduplicatorTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(PuzzleDeduplicatorTest.class);
+	}
+
+    public void testFingerprint() {
+        SudokuFactory factory = new SudokuFactory();
+        Random random = new Random(9);
+        Set<Long> fingerprints = new HashSet<Long>();
+        long time = 0;
+        for (int n = 0; n < 20; n++) {
+            Sudoku sudoku = factory.generateSmallestSolvableSudoku(SudokuDifficulty.EASY, random);
+            long start = System.nanoTime();
+            long fingerprint = PuzzleDeduplicator.fingerprint(sudoku);
+            time += System.nanoTime() - start;
+            assertTrue(fingerprints.add(fingerprint));
+            for (int i = 0; i < 5; i++) {
+                Sudoku variant = sudoku.transform(SudokuTransform.random(random));
+                assertEquals(fingerprint, PuzzleDeduplicator.fingerprint(variant));
+            }
+            assertEquals(fingerprint, PuzzleDeduplicator.fingerprint(
+                    sudoku.transform(new SudokuTransform().transpose())));
+
+            // one clue less is another puzzle
+            Sudoku smaller = new Sudoku(sudoku);
+            for (int cell = 0; cell < 81; cell++) {
+                if (smaller.getCellValue(cell / 9, cell % 9) != 0) {
+                    smaller.setCellValue(cell / 9, cell % 9, 0);
+                    break;
+                }
+            }
+            smaller = new Sudoku(smaller);
+            smaller.setSolution(sudoku.getSolution());
+            assertFalse(fingerprint == PuzzleDeduplicator.fingerprint(smaller));
+        }
+        logger.info("Fingerprint time: " + time / 20000 + "[us]");
+    }
+
+    public void testFullGrids() {
+        Random random = new Random(11);
+        FullGridGenerator generator = new FullGridGenerator();
+        Set<Long> fingerprints = new HashSet<Long>();
+        // the pattern grid has a large symmetry group, random grids almost always a trivial one
+        int[][] pattern = new int[9][9];
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                pattern[row][col] = (row * 3 + row / 3 + col) % 9 + 1;
+            }
+        }
+        List<Sudoku> grids = new ArrayList<Sudoku>();
+        grids.add(new Sudoku(pattern));
+        for (int n = 0; n < 10; n++) {
+            grids.add(generator.generate(random));
+        }
+        for (Sudoku grid : grids) {
+            long fingerprint = PuzzleDeduplicator.fingerprint(grid);
+            assertTrue(fingerprints.add(fingerprint));
+            int[] canonical = PuzzleDeduplicator.canonicalForm(grid);
+            for (int i = 0; i < 3; i++) {
+                Sudoku variant = grid.transform(SudokuTransform.random(random));
+                assertTrue(Arrays.equals(canonical, PuzzleDeduplicator.canonicalForm(variant)));
+                assertEquals(fingerprint, PuzzleDeduplicator.fingerprint(variant));
+            }
+        }
+        assertEquals(grids.size(), fingerprints.size());
+    }
+
+    public void testExact() {
+        Sudoku sudoku = new SudokuFactory().generateSmallestSolvableSudoku(SudokuDifficulty.EASY, new Random(1));
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator();
+        assertFalse(deduplicator.contains(sudoku));
+        assertTrue(deduplicator.add(sudoku));
+        assertTrue(deduplicator.contains(sudoku));
+        assertFalse(deduplicator.add(sudoku.transform(SudokuTransform.random(new Random(2)))));
+        // growing keeps all fingerprints
+        for (long fingerprint = 1; fingerprint <= 1000; fingerprint++) {
+            assertTrue(deduplicator.add(fingerprint * 7919));
+        }
+        for (long fingerprint = 1; fingerprint <= 1000; fingerprint++) {
+            assertFalse(deduplicator.add(fingerprint * 7919));
+        }
+        assertTrue(deduplicator.contains(sudoku));
+        assertEquals(1001, deduplicator.getSize());
+        assertEquals(1001, deduplicator.getDuplicates());
+        assertFalse(deduplicator.isBloomFilter());
+    }
+
+    public void testBloomFilter() {
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator(10000, 0.01);
+        assertTrue(deduplicator.isBloomFilter());
+        Random random = new Random(3);
+        long[] fingerprints = new long[10000];
+        int rejected = 0;
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = random.nextLong();
+            if (!deduplicator.add(fingerprints[i])) {
+                rejected++;
+            }
+        }
+        logger.info(deduplicator + ", new rejected: " + rejected);
+        assertTrue(rejected < 200);
+        for (long fingerprint : fingerprints) {
+            assertFalse(deduplicator.add(fingerprint));
+        }
+        try {
+            new PuzzleDeduplicator(100, 1.5);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testFactory() {
+        SudokuFactory factory = new SudokuFactory();
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator();
+        factory.setDeduplicator(deduplicator);
+        // seeded puzzles bypass the deduplicator, so an address keeps its puzzle
+        Sudoku first = factory.generate(7L, SudokuDifficulty.EASY, 0);
+        Sudoku second = factory.generate(7L, SudokuDifficulty.EASY, 0);
+        assertEquals(first.getStringRepresentation(), second.getStringRepresentation());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(0, deduplicator.getSize());
+
+        // a puzzle already added is generated again
+        assertTrue(deduplicator.add(first));
+        List<Sudoku> sudokus = factory.generate(5, SudokuDifficulty.EASY);
+        Set<Long> fingerprints = new HashSet<Long>();
+        fingerprints.add(PuzzleDeduplicator.fingerprint(first));
+        for (Sudoku sudoku : sudokus) {
+            assertTrue(fingerprints.add(PuzzleDeduplicator.fingerprint(sudoku)));
+        }
+        assertEquals(6, deduplicator.getSize());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.io.File;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PuzzlePoolTest extends TestCase {
+
+	final static Logger logger = Logger.getLogger(PuzzlePoolTest.class);
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public PuzzlePoolTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(PuzzlePoolTest.class);
+	}
+
+    public void testPool() throws InterruptedException {
+        try (PuzzlePool pool = new PuzzlePool(new SudokuFactory(), 1, 0, 0)) {
+            pool.setCapacity(SudokuDifficulty.EASY, 2, 1);
+            pool.start();
+            awaitSize(pool, SudokuDifficulty.EASY, 2);
+            assertEquals(2, pool.getGenerated(SudokuDifficulty.EASY));
+
+            // above the low water mark no refill is scheduled
+            long start = System.nanoTime();
+            Sudoku sudoku = pool.poll(SudokuDifficulty.EASY);
+            logger.info("Poll time: " + (System.nanoTime() - start) / 1000 + "[us]");
+            assertNotNull(sudoku);
+            assertEquals(1, pool.getSize(SudokuDifficulty.EASY));
+            assertEquals(0, pool.getInFlight(SudokuDifficulty.EASY));
+
+            // below the low water mark the bucket is refilled
+            assertNotNull(pool.poll(SudokuDifficulty.EASY));
+            awaitSize(pool, SudokuDifficulty.EASY, 2);
+            assertEquals(2, pool.getHits(SudokuDifficulty.EASY));
+            assertEquals(4, pool.getGenerated(SudokuDifficulty.EASY));
+
+            // disabled difficulty is never filled
+            assertNull(pool.poll(SudokuDifficulty.EXTREME));
+            assertEquals(1, pool.getMisses(SudokuDifficulty.EXTREME));
+            assertEquals(0, pool.getInFlight(SudokuDifficulty.EXTREME));
+
+            // full bucket rejects offers
+            assertFalse(pool.offer(SudokuDifficulty.EASY, sudoku));
+
+            // raising the capacity of a started pool fills it
+            pool.setCapacity(SudokuDifficulty.EASY, 3, 1);
+            awaitSize(pool, SudokuDifficulty.EASY, 3);
+            assertEquals(5, pool.getGenerated(SudokuDifficulty.EASY));
+            logger.info(pool);
+        }
+    }
+
+    public void testSnapshot() throws Exception {
+        File file = File.createTempFile("pool", ".snapshot");
+        try {
+            try (PuzzlePool pool = new PuzzlePool(new SudokuFactory(), 1, 0, 0)) {
+                pool.setCapacity(SudokuDifficulty.EASY, 2, 0);
+                pool.start();
+                awaitSize(pool, SudokuDifficulty.EASY, 2);
+                assertEquals(2, pool.saveSnapshot(file.getPath()));
+                assertEquals(2, pool.getSize(SudokuDifficulty.EASY));
+            }
+            try (PuzzlePool pool = new PuzzlePool(new SudokuFactory(), 1, 0, 0)) {
+                pool.setCapacity(SudokuDifficulty.EASY, 1, 0);
+                assertEquals(1, pool.loadSnapshot(file.getPath()));
+                pool.start();
+                assertEquals(0, pool.getInFlight(SudokuDifficulty.EASY));
+                Sudoku sudoku = pool.poll(SudokuDifficulty.EASY);
+                assertNotNull(sudoku.getSolution());
+                assertEquals(0, pool.getGenerated(SudokuDifficulty.EASY));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testIncorrectCapacity() {
+        try (PuzzlePool pool = new PuzzlePool(new SudokuFactory(), 1, 0, 0)) {
+            pool.setCapacity(SudokuDifficulty.EASY, 1, 2);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void awaitSize(PuzzlePool pool, SudokuDifficulty difficulty, int size)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60000;
+        while (pool.getSize(difficulty) < size || pool.getInFlight(difficulty) > 0) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
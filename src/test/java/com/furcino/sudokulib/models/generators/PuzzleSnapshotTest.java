@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.TestHelper;
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PuzzleSnapshotTest extends TestCase {
+
+	final static Logger logger = Logger.getLogger(PuzzleSnapshotTest.class);
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public PuzzleSnapshotTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(PuzzleSnapshotTest.class);
+	}
+
+    public void testRoundTrip() throws Exception {
+        Sudoku generated = new SudokuFactory().generateSmallestSolvableSudoku(SudokuDifficulty.EASY);
+        List<Sudoku> hard = TestHelper.getHardSudokus();
+        Map<SudokuDifficulty, List<Sudoku>> puzzles =
+                new EnumMap<SudokuDifficulty, List<Sudoku>>(SudokuDifficulty.class);
+        puzzles.put(SudokuDifficulty.EASY, Arrays.asList(generated));
+        puzzles.put(SudokuDifficulty.HARD, hard);
+
+        File file = File.createTempFile("puzzles", ".snapshot");
+        try {
+            assertEquals(1 + hard.size(), PuzzleSnapshot.write(file.getPath(), puzzles));
+            logger.info("Snapshot size: " + file.length() + "[B]");
+            Map<SudokuDifficulty, List<Sudoku>> loaded = PuzzleSnapshot.read(file.getPath());
+
+            Sudoku easy = loaded.get(SudokuDifficulty.EASY).get(0);
+            assertTrue(easy.isSame(generated));
+            assertTrue(easy.getSolution().isSame(generated.getSolution()));
+            assertEquals(generated.getId(), easy.getId());
+            assertEquals(generated.getRating(), easy.getRating());
+
+            assertEquals(hard.size(), loaded.get(SudokuDifficulty.HARD).size());
+            for (int i = 0; i < hard.size(); i++) {
+                assertTrue(loaded.get(SudokuDifficulty.HARD).get(i).isSame(hard.get(i)));
+                assertEquals(hard.get(i).getSolution() == null,
+                        loaded.get(SudokuDifficulty.HARD).get(i).getSolution() == null);
+            }
+            assertNull(loaded.get(SudokuDifficulty.NORMAL));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testTruncated() throws Exception {
+        Map<SudokuDifficulty, List<Sudoku>> puzzles =
+                new EnumMap<SudokuDifficulty, List<Sudoku>>(SudokuDifficulty.class);
+        puzzles.put(SudokuDifficulty.HARD, TestHelper.getHardSudokus());
+        File file = File.createTempFile("puzzles", ".snapshot");
+        try {
+            PuzzleSnapshot.write(file.getPath(), puzzles);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 5));
+            PuzzleSnapshot.read(file.getPath());
+            fail();
+        } catch (IOException e) {
+            // expected
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testLongId() throws Exception {
+        Map<SudokuDifficulty, List<Sudoku>> puzzles =
+                new EnumMap<SudokuDifficulty, List<Sudoku>>(SudokuDifficulty.class);
+        puzzles.put(SudokuDifficulty.HARD, TestHelper.getHardSudokus());
+        File file = File.createTempFile("puzzles", ".snapshot");
+        try {
+            PuzzleSnapshot.write(file.getPath(), puzzles);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+
+            char[] id = new char[0x10000];
+            Arrays.fill(id, 'x');
+            Sudoku sudoku = new Sudoku(puzzles.get(SudokuDifficulty.HARD).get(0), new String(id));
+            puzzles.put(SudokuDifficulty.EASY, Arrays.asList(sudoku));
+            try {
+                PuzzleSnapshot.write(file.getPath(), puzzles);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            // the previous snapshot is kept and no temporary file is left
+            assertTrue(Arrays.equals(bytes, Files.readAllBytes(file.toPath())));
+            File[] siblings = file.getParentFile().listFiles((dir, name) -> name.startsWith(file.getName()));
+            assertEquals(1, siblings.length);
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -14,12 +14,24 @@
  */
 package com.furcino.sudokulib.models.generators;
 
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.log4j.Logger;
 
 import com.furcino.sudokulib.models.Sudoku;
 import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.rating.DifficultyRater;
 import com.furcino.sudokulib.models.solvers.SudokuHumanSolver;
 import com.furcino.sudokulib.models.solvers.SudokuPossibilityBasedSolver;
 import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
@@ -57,6 +69,8 @@ public class SudokuFactoryTest extends TestCase {
         logger.info("Generating Done");
 		for (Sudoku sudoku : sudokus) {
 			logger.info("Clue Count = " + sudoku.getClueCount());
+			// only basic technique (cost 1) is needed
+			assertTrue(sudoku.getRating() >= 1 && sudoku.getRating() < 2);
 			//logger.info(sudoku);
 			SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku(sudoku), SudokuDifficulty.EASY);
 			SudokuPossibilityBasedSolver solverP = new SudokuPossibilityBasedSolver(new Sudoku(sudoku));
@@ -183,4 +197,149 @@ public class SudokuFactoryTest extends TestCase {
             }
         }
     }
+
+    public void testParallelGenerate() throws Exception {
+        SudokuFactory generator = new SudokuFactory();
+        for (boolean ordered : new boolean[] {true, false}) {
+            List<Sudoku> sudokus = generator.generate(4, SudokuDifficulty.NORMAL, 2, ordered);
+            assertEquals(4, sudokus.size());
+            for (Sudoku sudoku : sudokus) {
+                SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku(sudoku), SudokuDifficulty.NORMAL);
+                assertEquals(1, solver.solve());
+                assertTrue(solver.meetsDifficulty(SudokuDifficulty.NORMAL));
+                assertTrue(solver.getSudoku().isSame(sudoku.getSolution()));
+            }
+        }
+    }
+
+    public void testStream() throws Exception {
+        SudokuFactory generator = new SudokuFactory();
+        List<Sudoku> sudokus = generator.stream(SudokuDifficulty.EASY).limit(2).collect(Collectors.toList());
+        assertEquals(2, sudokus.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // limited iterator generates exactly the requested puzzles
+            PuzzleIterator iterator = generator.iterator(SudokuDifficulty.EASY, executor, 2, 3);
+            assertEquals(2, iterator.getPendingCount());
+            int count = 0;
+            while (iterator.hasNext()) {
+                Sudoku sudoku = iterator.next();
+                assertNotNull(sudoku.getSolution());
+                assertTrue(iterator.getPendingCount() <= 2);
+                count++;
+            }
+            assertEquals(3, count);
+            assertEquals(0, iterator.getPendingCount());
+
+            // closing the stream cancels puzzles generated ahead
+            try (Stream<Sudoku> stream = generator.stream(SudokuDifficulty.NORMAL, executor, 2)) {
+                assertEquals(1, stream.limit(1).count());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    public void testVariants() throws Exception {
+        SudokuFactory generator = new SudokuFactory();
+        List<Sudoku> sudokus = generator.generate(5, SudokuDifficulty.EASY, 2);
+        assertEquals(5, sudokus.size());
+        Set<String> distinct = new HashSet<String>();
+        for (Sudoku sudoku : sudokus) {
+            distinct.add(sudoku.getStringRepresentation());
+            SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku(sudoku), SudokuDifficulty.EASY);
+            assertEquals(1, solver.solve());
+            assertTrue(solver.getSudoku().isSame(sudoku.getSolution()));
+        }
+        assertEquals(5, distinct.size());
+        // variants are numbered after their base puzzle
+        assertEquals(sudokus.get(0).getId() + "-v1", sudokus.get(1).getId());
+        assertEquals(sudokus.get(0).getId() + "-v2", sudokus.get(2).getId());
+
+        Sudoku seeded = generator.generate(5L, SudokuDifficulty.EASY, 3);
+        List<Sudoku> variants = generator.getVariants(seeded, 2, new Random(1));
+        assertEquals("5-EASY-3-v1", variants.get(0).getId());
+        assertEquals("5-EASY-3-v2", variants.get(1).getId());
+    }
+
+    public void testMixed() throws Exception {
+        SudokuFactory generator = new SudokuFactory();
+        Map<SudokuDifficulty, Integer> counts = new EnumMap<SudokuDifficulty, Integer>(SudokuDifficulty.class);
+        counts.put(SudokuDifficulty.EASY, 3);
+        counts.put(SudokuDifficulty.NORMAL, 2);
+        counts.put(SudokuDifficulty.HARD, 2);
+        Map<SudokuDifficulty, List<Sudoku>> sudokus = generator.generate(counts);
+        DifficultyRater rater = new DifficultyRater(1);
+        for (Map.Entry<SudokuDifficulty, Integer> entry : counts.entrySet()) {
+            assertEquals(entry.getValue().intValue(), sudokus.get(entry.getKey()).size());
+            for (Sudoku sudoku : sudokus.get(entry.getKey())) {
+                assertEquals(entry.getKey(), rater.rate(sudoku).getDifficulty());
+                SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(sudoku));
+                solver.setMaxSolutions(2);
+                assertEquals(1, solver.solve());
+                assertTrue(solver.getSolutions().get(0).isSame(sudoku.getSolution()));
+            }
+        }
+    }
+
+    public void testSeeded() throws Exception {
+        SudokuFactory generator = new SudokuFactory();
+        List<Sudoku> sequential = generator.generateSeeded(4, SudokuDifficulty.NORMAL, 42L);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Sudoku> parallel = new SudokuFactory().generateSeeded(4, SudokuDifficulty.NORMAL, 42L, executor);
+            for (int n = 0; n < 4; n++) {
+                assertEquals(sequential.get(n).getStringRepresentation(), parallel.get(n).getStringRepresentation());
+                assertEquals("2a-NORMAL-" + n, parallel.get(n).getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // any single puzzle can be regenerated from its address
+        assertEquals(sequential.get(3).getStringRepresentation(),
+                generator.generate(42L, SudokuDifficulty.NORMAL, 3).getStringRepresentation());
+        assertFalse(sequential.get(0).getStringRepresentation().equals(
+                generator.generate(43L, SudokuDifficulty.NORMAL, 0).getStringRepresentation()));
+    }
+
+    public void testClueRange() throws Exception {
+        SudokuFactory generator = new SudokuFactory();
+        for (int n = 0; n < 3; n++) {
+            Sudoku sudoku = generator.generateWithClues(SudokuDifficulty.EASY, 30, 32);
+            assertTrue(sudoku.getClueCount() >= 30 && sudoku.getClueCount() <= 32);
+            SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(sudoku));
+            solver.setMaxSolutions(2);
+            assertEquals(1, solver.solve());
+        }
+        try {
+            generator.generateWithClues(SudokuDifficulty.EASY, 30, 25);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testDeadline() throws Exception {
+        SudokuFactory generator = new SudokuFactory();
+        GenerationResult result = generator.generate(3, SudokuDifficulty.EASY, Instant.now().plusSeconds(60));
+        assertTrue(result.isComplete());
+        assertEquals(3, result.getSudokus().size());
+        assertEquals(3, result.getStats().getPuzzles());
+        assertTrue(result.getStats().getGrids() >= 3);
+        assertTrue(result.getStats().getDigs() >= result.getStats().getGrids());
+
+        result = generator.generate(1000, SudokuDifficulty.VERY_HARD, Instant.now().plusMillis(300));
+        logger.info(result);
+        assertFalse(result.isComplete());
+        assertTrue(result.getTime() < 3000);
+        for (Sudoku sudoku : result.getSudokus()) {
+            assertNotNull(sudoku.getSolution());
+        }
+
+        result = generator.generate(5, SudokuDifficulty.EASY, Instant.now().minusSeconds(1));
+        assertEquals(0, result.getSudokus().size());
+        assertEquals(0, result.getStats().getGrids());
+    }
 }
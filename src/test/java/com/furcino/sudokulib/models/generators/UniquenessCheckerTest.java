@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.generators;
+
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.solvers.SudokuPossibilityBasedSolver;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class UniquenessCheckerTest extends TestCase {
+
+	final static Logger logger = Logger.getLogger(UniquenessCheckerTest.class);
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public UniquenessCheckerTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(UniquenessCheckerTest.class);
+	}
+
+    public void testFullGrid() {
+        Sudoku solution = new FullGridGenerator().generate(new Random(3));
+        UniquenessChecker checker = new UniquenessChecker(solution);
+        for (int cell = 0; cell < 81; cell++) {
+            assertTrue(checker.isUniqueWithout(cell));
+        }
+        // every clue of a full grid is a naked single
+        assertEquals(81, checker.getFastPathCount());
+        assertEquals(0, checker.getSearchCount());
+    }
+
+    public void testAgainstSolver() throws Exception {
+        Sudoku sudoku = new SudokuFactory().generateSmallestSolvableSudoku(SudokuDifficulty.HARD, new Random(5));
+        // put back a few clues, so that some removals keep the puzzle unique
+        int grid[][] = new int[9][9];
+        for (int cell = 0; cell < 81; cell++) {
+            grid[cell / 9][cell % 9] = cell % 4 == 0 ? sudoku.getSolution().getCellValue(cell / 9, cell % 9)
+                    : sudoku.getCellValue(cell / 9, cell % 9);
+        }
+        Sudoku puzzle = new Sudoku(grid);
+        UniquenessChecker checker = new UniquenessChecker(puzzle);
+        int unique = 0;
+        for (int cell = 0; cell < 81; cell++) {
+            if (puzzle.getCellValue(cell / 9, cell % 9) == 0) {
+                continue;
+            }
+            Sudoku removed = new Sudoku(puzzle);
+            removed.setCellValue(cell / 9, cell % 9, 0);
+            SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(removed));
+            solver.setMaxSolutions(2);
+            boolean expected = solver.solve() == 1;
+            assertEquals(expected, checker.isUniqueWithout(cell));
+            if (expected) {
+                unique++;
+            }
+        }
+        logger.info("Unique removals: " + unique + ", singles: " + checker.getFastPathCount()
+                + ", searches: " + checker.getSearchCount());
+        assertTrue(unique > 0);
+        assertTrue(checker.getSearchCount() > 0);
+
+        // removing clues keeps the checker in step with the puzzle
+        for (int cell = 0; cell < 81; cell++) {
+            if (puzzle.getCellValue(cell / 9, cell % 9) != 0 && sudoku.getCellValue(cell / 9, cell % 9) == 0) {
+                checker.remove(cell);
+            }
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            if (sudoku.getCellValue(cell / 9, cell % 9) != 0) {
+                Sudoku removed = new Sudoku(sudoku);
+                removed.setCellValue(cell / 9, cell % 9, 0);
+                SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(removed));
+                solver.setMaxSolutions(2);
+                assertEquals(solver.solve() == 1, checker.isUniqueWithout(cell));
+            }
+        }
+    }
+
+    public void testMinimal() throws Exception {
+        SudokuFactory factory = new SudokuFactory();
+        Random random = new Random(11);
+        long checkerTime = 0;
+        long naiveTime = 0;
+        for (int n = 0; n < 6; n++) {
+            Sudoku sudoku = factory.generateSmallestSolvableSudoku(SudokuDifficulty.values()[n % 3], random);
+            int grid[][] = new int[9][9];
+            for (int cell = 0; cell < 81; cell++) {
+                // every other puzzle gets a redundant clue back
+                boolean extra = n % 2 == 1 && cell == firstEmpty(sudoku);
+                grid[cell / 9][cell % 9] = extra ? sudoku.getSolution().getCellValue(cell / 9, cell % 9)
+                        : sudoku.getCellValue(cell / 9, cell % 9);
+            }
+            Sudoku puzzle = new Sudoku(grid);
+
+            long start = System.nanoTime();
+            boolean minimal = SudokuFactory.isMinimal(puzzle);
+            checkerTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            boolean expected = true;
+            for (int cell = 0; cell < 81 && expected; cell++) {
+                if (puzzle.getCellValue(cell / 9, cell % 9) != 0) {
+                    Sudoku removed = new Sudoku(puzzle);
+                    removed.setCellValue(cell / 9, cell % 9, 0);
+                    SudokuPossibilityBasedSolver solver = new SudokuPossibilityBasedSolver(new Sudoku(removed));
+                    solver.setMaxSolutions(2);
+                    expected = solver.solve() > 1;
+                }
+            }
+            naiveTime += System.nanoTime() - start;
+            assertEquals(expected, minimal);
+            if (n % 2 == 1) {
+                assertFalse(minimal);
+            }
+        }
+        logger.info("Minimality check: " + checkerTime / 6000 + "[us], naive: " + naiveTime / 6000 + "[us]");
+
+        // a puzzle with several solutions is not minimal
+        assertFalse(SudokuFactory.isMinimal(new Sudoku()));
+        assertFalse(new UniquenessChecker(new Sudoku()).isUnique());
+    }
+
+    private static int firstEmpty(Sudoku sudoku) {
+        for (int cell = 0; cell < 81; cell++) {
+            if (sudoku.getCellValue(cell / 9, cell % 9) == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    public void testEmptyCell() {
+        Sudoku sudoku = new Sudoku();
+        UniquenessChecker checker = new UniquenessChecker(sudoku);
+        try {
+            checker.isUniqueWithout(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.rating;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.furcino.sudokulib.TestHelper;
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class DifficultyFeaturesTest extends TestCase {
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public DifficultyFeaturesTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(DifficultyFeaturesTest.class);
+	}
+
+    public void testFeatures() {
+        Sudoku sudoku = new Sudoku(
+                "000000000003000710070000403002090075040307680000000000034809260061004307000000000");
+        DifficultyFeatures features = new DifficultyFeatures(sudoku);
+        assertEquals(sudoku.getClueCount(), features.getClueCount());
+        assertEquals(sudoku.getBivalueCellCount(), features.getBivalueCount());
+        assertTrue(features.getCandidateCount() > 81 - features.getClueCount());
+        assertFalse(features.isSinglesSolved());
+        assertFalse(features.isLockedSolved());
+        assertFalse(features.canReach(SudokuDifficulty.EASY));
+        assertFalse(features.canReach(SudokuDifficulty.NORMAL));
+        assertTrue(features.canReach(SudokuDifficulty.EXTREME));
+    }
+
+    public void testNeverRejectsRatedDifficulty() throws Exception {
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        sudokus.addAll(TestHelper.getEasySudokus());
+        sudokus.addAll(TestHelper.getNormalSudokus());
+        sudokus.addAll(TestHelper.getHardSudokus());
+
+        DifficultyRater rater = new DifficultyRater(1);
+        for (Sudoku sudoku : sudokus) {
+            DifficultyRating rating = rater.rate(sudoku);
+            DifficultyFeatures features = new DifficultyFeatures(sudoku);
+            assertTrue(features.canReach(rating.getDifficulty()));
+            int reachable = 0;
+            for (SudokuDifficulty difficulty : SudokuDifficulty.values()) {
+                if (features.canReach(difficulty)) {
+                    reachable++;
+                }
+            }
+            // solved by singles means exactly one difficulty is possible
+            assertTrue(!features.isSinglesSolved() || reachable == 1);
+        }
+    }
+}
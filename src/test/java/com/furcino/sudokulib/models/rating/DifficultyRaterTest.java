@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.rating;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.furcino.sudokulib.TestHelper;
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.solvers.SudokuHumanSolver;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class DifficultyRaterTest extends TestCase {
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public DifficultyRaterTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(DifficultyRaterTest.class);
+	}
+
+    public void testRate() throws Exception {
+        DifficultyRater rater = new DifficultyRater(1);
+
+        DifficultyRating rating = rater.rate(new Sudoku(
+                "000000000003000710070000403002090075040307680000000000034809260061004307000000000"));
+        assertTrue(rating.isUnique());
+        assertEquals(SudokuDifficulty.EXTREME, rating.getDifficulty());
+        assertTrue(rating.getScore() >= 20);
+
+        // rating agrees with a solve limited to the rated difficulty
+        for (Sudoku sudoku : TestHelper.getHardSudokus()) {
+            rating = rater.rate(sudoku);
+            assertTrue(rating.isRated());
+            SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, rating.getDifficulty());
+            solver.setAssumeUnique(true);
+            assertEquals(1, solver.solve());
+            assertTrue(solver.meetsDifficulty(rating.getDifficulty()));
+        }
+
+        // more solutions
+        rating = rater.rate(new Sudoku(
+                "000000000003000710070000403002090075040307680000000000034809260061004307000000001"
+                        .replace('1', '0')));
+        assertFalse(rating.isUnique());
+        assertFalse(rating.isRated());
+    }
+
+    public void testRateAll() throws Exception {
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        sudokus.addAll(TestHelper.getEasySudokus());
+        sudokus.addAll(TestHelper.getNormalSudokus());
+        sudokus.addAll(TestHelper.getHardSudokus());
+
+        DifficultyRater rater = new DifficultyRater(4);
+        List<DifficultyRating> ratings = rater.rateAll(sudokus);
+        assertEquals(sudokus.size(), ratings.size());
+        for (int i = 0; i < sudokus.size(); i++) {
+            DifficultyRating rating = rater.rate(sudokus.get(i));
+            assertEquals(rating.getDifficulty(), ratings.get(i).getDifficulty());
+            assertEquals(rating.getScore(), ratings.get(i).getScore());
+        }
+    }
+}
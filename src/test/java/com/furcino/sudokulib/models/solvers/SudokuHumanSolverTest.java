@@ -1,8 +1,13 @@
 package com.furcino.sudokulib.models.solvers;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.apache.log4j.Logger;
 
 import com.furcino.sudokulib.TestHelper;
+import com.furcino.sudokulib.models.Cell;
 import com.furcino.sudokulib.models.SudokuDifficulty;
 import com.furcino.sudokulib.models.Sudoku;
 import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
@@ -158,4 +163,670 @@ public class SudokuHumanSolverTest extends TestCase {
 		logger.info("Average time: " + ((double) sum)/count + "[ms]");
     }
 
+
+    /**
+     * Restrict possible values of a cell to given values
+     */
+    private static void setCandidates(Sudoku sudoku, int row, int col, int... values) {
+        for (int value = 1; value <= Sudoku.N; value++) {
+            boolean keep = false;
+            for (int candidate : values) {
+                keep |= candidate == value;
+            }
+            if (!keep) {
+                sudoku.setCellValueAsImpossible(row, col, value);
+            }
+        }
+    }
+
+    public void testXYWing() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 0, 5, 1, 3);
+        setCandidates(sudoku, 4, 0, 2, 3);
+        assertEquals(3, sudoku.getBivalueCellCount());
+
+        assertTrue(solver.solveXYWing(sudoku));
+        assertFalse(sudoku.isCellValuePossible(4, 5, 3));
+        assertTrue(sudoku.isCellValuePossible(4, 6, 3));
+        assertFalse(solver.solveXYWing(sudoku));
+    }
+
+    public void testXYZWing() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2, 3);
+        setCandidates(sudoku, 0, 5, 1, 3);
+        setCandidates(sudoku, 1, 1, 2, 3);
+
+        assertTrue(solver.solveXYZWing(sudoku));
+        assertFalse(sudoku.isCellValuePossible(0, 1, 3));
+        assertFalse(sudoku.isCellValuePossible(0, 2, 3));
+        assertTrue(sudoku.isCellValuePossible(1, 3, 3));
+        assertTrue(sudoku.isCellValuePossible(0, 0, 3));
+    }
+
+    public void testWWing() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 4, 4, 1, 2);
+        for (int col = 0; col < Sudoku.N; col++) {
+            if (col != 0 && col != 4) {
+                sudoku.setCellValueAsImpossible(8, col, 1);
+            }
+        }
+
+        assertTrue(solver.solveWWing(sudoku));
+        assertFalse(sudoku.isCellValuePossible(0, 4, 2));
+        assertFalse(sudoku.isCellValuePossible(4, 0, 2));
+        assertTrue(sudoku.isCellValuePossible(0, 4, 1));
+    }
+
+
+    /**
+     * Remove value from all cells of a row except given columns
+     */
+    private static void keepInRow(Sudoku sudoku, int row, int value, int... cols) {
+        for (int col = 0; col < Sudoku.N; col++) {
+            boolean keep = false;
+            for (int kept : cols) {
+                keep |= kept == col;
+            }
+            if (!keep) {
+                sudoku.setCellValueAsImpossible(row, col, value);
+            }
+        }
+    }
+
+    /**
+     * Test target difficulty stops the solve once it can not be met.
+     *
+     * @throws Exception the exception
+     */
+    public void testTargetDifficulty() throws Exception {
+        String puzzle = "000000000003000710070000403002090075040307680000000000034809260061004307000000000";
+        Sudoku sudoku = new Sudoku(puzzle);
+        SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EXTREME);
+        assertEquals(1, solver.solve());
+        assertTrue(solver.meetsDifficulty(SudokuDifficulty.EXTREME));
+        assertFalse(solver.meetsDifficulty(SudokuDifficulty.VERY_HARD));
+        assertTrue(solver.isDifficultyExceeded(SudokuDifficulty.VERY_HARD));
+        assertFalse(solver.isDifficultyExceeded(SudokuDifficulty.EXTREME));
+
+        // techniques above the target are not used
+        solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EXTREME);
+        solver.setTargetDifficulty(SudokuDifficulty.VERY_HARD);
+        assertEquals(0, solver.solve());
+        assertEquals(0, solver.getChainSolves());
+        assertFalse(solver.meetsDifficulty(SudokuDifficulty.VERY_HARD));
+
+        // easy puzzles allow only a few basic solves
+        int aborted = 0;
+        for (Sudoku normal : TestHelper.getNormalSudokus()) {
+            solver = new SudokuHumanSolver(normal, SudokuDifficulty.NORMAL);
+            assertEquals(1, solver.solve());
+            if (solver.getBasicSolves() > SudokuHumanSolver.EASY_MAX_BASIC_SOLVES) {
+                solver = new SudokuHumanSolver(normal, SudokuDifficulty.NORMAL);
+                solver.setTargetDifficulty(SudokuDifficulty.EASY);
+                assertEquals(0, solver.solve());
+                assertTrue(solver.isAborted());
+                assertEquals(SudokuHumanSolver.EASY_MAX_BASIC_SOLVES + 1, solver.getBasicSolves());
+                aborted++;
+            }
+        }
+        assertTrue(aborted > 0);
+    }
+
+    /**
+     * Test solve path replays to the solution and gives the rating.
+     *
+     * @throws Exception the exception
+     */
+    public void testSolvePath() throws Exception {
+        String puzzle = "000000000003000710070000403002090075040307680000000000034809260061004307000000000";
+        SudokuPossibilityBasedSolver bruteForce = new SudokuPossibilityBasedSolver(new Sudoku(puzzle));
+        assertEquals(1, bruteForce.solve());
+        Sudoku sudoku = new Sudoku(puzzle);
+        sudoku.setSolution(bruteForce.getFirstSolution());
+        SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EXTREME);
+        assertEquals(1, solver.solve());
+
+        SolvePath path = solver.getSolvePath();
+        assertEquals(solver.getBasicSolves() + solver.getBasicLockedCandidatesSolves() + solver.getAdvancedSolves()
+                + solver.getChainSolves(), path.getStepCount());
+        assertTrue(path.getHardestWeight() >= HumanTechnique.ALTERNATING_INFERENCE_CHAINS.getWeight());
+        assertEquals(path.getHardestWeight(), (int) Math.floor(solver.getRating()));
+        assertTrue(solver.getRating() > path.getHardestWeight());
+
+        List<SolvingStep> steps = path.getSteps();
+        assertEquals(path.getStepCount(), steps.size());
+        Sudoku replay = new Sudoku(puzzle);
+        for (SolvingStep step : steps) {
+            assertFalse(step.isEmpty());
+            step.apply(replay);
+        }
+        assertTrue(replay.isSame(sudoku.getSolution()));
+
+        // recording can be turned off
+        solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EXTREME);
+        solver.setSolvePath(null);
+        assertEquals(1, solver.solve());
+        assertEquals(0.0, solver.getRating());
+    }
+
+    /**
+     * Test a puzzle needing a harder tier always rates above puzzles of easier tiers.
+     *
+     * @throws Exception the exception
+     */
+    public void testRatingTiers() throws Exception {
+        for (HumanTechnique one : HumanTechnique.values()) {
+            for (HumanTechnique two : HumanTechnique.values()) {
+                if (one.getDifficulty().compareTo(two.getDifficulty()) > 0) {
+                    assertTrue(one + " " + two, one.getWeight() > two.getWeight());
+                }
+            }
+        }
+
+        // many locked candidates steps stay below a single BUG+1
+        SolvePath hard = new SolvePath();
+        for (int i = 0; i < 2000; i++) {
+            hard.beginStep(HumanTechnique.GRID_LOCKED_CANDIDATES);
+            hard.endStep(true);
+        }
+        SolvePath veryHard = new SolvePath();
+        veryHard.beginStep(HumanTechnique.BUG_PLUS_ONE);
+        veryHard.endStep(true);
+        assertTrue(veryHard.getRating() > hard.getRating());
+
+        double[] lowest = new double[SudokuDifficulty.values().length];
+        double[] highest = new double[SudokuDifficulty.values().length];
+        Arrays.fill(lowest, Double.MAX_VALUE);
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        sudokus.addAll(TestHelper.getEasySudokus());
+        sudokus.addAll(TestHelper.getNormalSudokus());
+        sudokus.addAll(TestHelper.getHardSudokus());
+        for (Sudoku sudoku : sudokus) {
+            SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku(sudoku), SudokuDifficulty.EXTREME);
+            if (solver.solve() != 1) {
+                continue;
+            }
+            SudokuDifficulty tier = SudokuDifficulty.EASY;
+            for (SolvingStep step : solver.getSolvePath().getSteps()) {
+                if (step.getTechnique().getDifficulty().compareTo(tier) > 0) {
+                    tier = step.getTechnique().getDifficulty();
+                }
+            }
+            lowest[tier.ordinal()] = Math.min(lowest[tier.ordinal()], solver.getRating());
+            highest[tier.ordinal()] = Math.max(highest[tier.ordinal()], solver.getRating());
+        }
+        for (int tier = 1; tier < lowest.length; tier++) {
+            for (int easier = 0; easier < tier; easier++) {
+                assertTrue(lowest[tier] > highest[easier]);
+            }
+        }
+    }
+
+    /**
+     * Test next step hints applied one by one until the puzzle is solved.
+     *
+     * @throws Exception the exception
+     */
+    public void testNextStep() throws Exception {
+        String puzzle = "000000000003000710070000403002090075040307680000000000034809260061004307000000000";
+        SudokuPossibilityBasedSolver bruteForce = new SudokuPossibilityBasedSolver(new Sudoku(puzzle));
+        assertEquals(1, bruteForce.solve());
+        Sudoku sudoku = new Sudoku(puzzle);
+        sudoku.setSolution(bruteForce.getFirstSolution());
+        SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EXTREME);
+
+        // first step is a single hidden single and does not change the puzzle
+        SolvingStep step = solver.nextStep(sudoku);
+        assertEquals(HumanTechnique.BASIC, step.getTechnique());
+        assertEquals(1, step.getPlacements().size());
+        assertEquals(0, step.getEliminations().size());
+        assertEquals(1, step.getCells().length);
+        assertEquals(puzzle, sudoku.getStringRepresentation());
+
+        // eliminations are kept between steps, so hints always make progress
+        int steps = 0;
+        boolean chain = false;
+        while ((step = solver.nextStep(sudoku)) != null) {
+            assertFalse(step.isEmpty());
+            chain |= step.getTechnique().getType() == TechniqueType.CHAIN;
+            step.apply(sudoku);
+            assertTrue(++steps < 1000);
+        }
+        assertTrue(chain);
+        assertTrue(sudoku.isSolved());
+        assertTrue(sudoku.isSame(sudoku.getSolution()));
+    }
+
+    public void testNextStepLiveCandidates() throws Exception {
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        sudokus.addAll(TestHelper.getEasySudokus());
+        sudokus.addAll(TestHelper.getNormalSudokus());
+        sudokus.addAll(TestHelper.getHardSudokus());
+        for (Sudoku puzzle : sudokus) {
+            Sudoku sudoku = new Sudoku(puzzle);
+            SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku(puzzle), SudokuDifficulty.EXTREME);
+            SolvingStep step;
+            int steps = 0;
+            while ((step = solver.nextStep(sudoku)) != null) {
+                // every reported change must be live in the state passed in
+                for (Cell cell : step.getEliminations()) {
+                    assertTrue(step.toString(), sudoku.isCellValuePossible(cell.getRow(), cell.getCol(), cell.getValue()));
+                }
+                for (Cell cell : step.getPlacements()) {
+                    assertEquals(step.toString(), 0, sudoku.getCellValue(cell.getRow(), cell.getCol()));
+                    assertTrue(step.toString(), sudoku.isCellValuePossible(cell.getRow(), cell.getCol(), cell.getValue()));
+                }
+                step.apply(sudoku);
+                assertTrue(++steps < 1000);
+            }
+        }
+    }
+
+    public void testNextStepMatchesFreshSolver() throws Exception {
+        List<Sudoku> sudokus = new ArrayList<Sudoku>();
+        sudokus.addAll(TestHelper.getEasySudokus());
+        sudokus.addAll(TestHelper.getNormalSudokus());
+        sudokus.addAll(TestHelper.getHardSudokus());
+        for (Sudoku puzzle : sudokus) {
+            Sudoku sudoku = new Sudoku(puzzle);
+            SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku(puzzle), SudokuDifficulty.EXTREME);
+            SolvingStep step;
+            while ((step = solver.nextStep(sudoku)) != null) {
+                // a reused solver must still give the easiest step a fresh one gives
+                SolvingStep fresh = new SudokuHumanSolver(new Sudoku(puzzle), SudokuDifficulty.EXTREME).nextStep(sudoku);
+                assertEquals(step.toString(), fresh.getTechnique(), step.getTechnique());
+                step.apply(sudoku);
+            }
+        }
+    }
+
+    /**
+     * Remove value from all cells of a column except given rows
+     */
+    private static void keepInCol(Sudoku sudoku, int col, int value, int... rows) {
+        for (int row = 0; row < Sudoku.N; row++) {
+            boolean keep = false;
+            for (int kept : rows) {
+                keep |= kept == row;
+            }
+            if (!keep) {
+                sudoku.setCellValueAsImpossible(row, col, value);
+            }
+        }
+    }
+
+    public void testStrongLinkGraph() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        StrongLinkGraph graph = solver.getStrongLinkGraph(sudoku);
+        assertEquals(0, graph.getLinks(1).length);
+
+        keepInRow(sudoku, 1, 1, 1, 6);
+        assertEquals(2, graph.getLinks(1).length);
+        assertEquals(1, graph.getLinkUnits(1)[0]);
+        assertTrue(graph.isLinked(1, 10, 15));
+
+        // one place left, so the link is gone
+        sudoku.setCellValueAsImpossible(1, 6, 1);
+        assertFalse(graph.isLinked(1, 10, 15));
+        assertEquals(0, graph.getLinks(1).length);
+        assertSame(graph, solver.getStrongLinkGraph(sudoku));
+    }
+
+    public void testXWing() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        keepInRow(sudoku, 0, 1, 0, 4);
+        keepInRow(sudoku, 6, 1, 0, 4);
+
+        assertTrue(solver.solveAdvancedXWingAndSkyscraper(sudoku));
+        for (int row = 0; row < Sudoku.N; row++) {
+            assertEquals(row == 0 || row == 6, sudoku.isCellValuePossible(row, 0, 1));
+            assertEquals(row == 0 || row == 6, sudoku.isCellValuePossible(row, 4, 1));
+        }
+        assertTrue(sudoku.isCellValuePossible(1, 1, 1));
+    }
+
+    public void testSkyscraper() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        keepInRow(sudoku, 0, 1, 0, 4);
+        keepInRow(sudoku, 6, 1, 0, 5);
+
+        assertTrue(solver.solveAdvancedXWingAndSkyscraper(sudoku));
+        // cells seeing both (0,4) and (6,5)
+        assertFalse(sudoku.isCellValuePossible(1, 5, 1));
+        assertFalse(sudoku.isCellValuePossible(2, 5, 1));
+        assertFalse(sudoku.isCellValuePossible(7, 4, 1));
+        assertFalse(sudoku.isCellValuePossible(8, 4, 1));
+        assertTrue(sudoku.isCellValuePossible(1, 3, 1));
+        // shared column keeps its possibilities
+        assertTrue(sudoku.isCellValuePossible(3, 0, 1));
+    }
+
+    public void testTwoStringKite() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        keepInRow(sudoku, 1, 1, 1, 6);
+        keepInCol(sudoku, 0, 1, 2, 7);
+
+        assertFalse(solver.solveTurbotFish(sudoku));
+        assertTrue(solver.solveTwoStringKite(sudoku));
+        assertFalse(sudoku.isCellValuePossible(7, 6, 1));
+        assertTrue(sudoku.isCellValuePossible(7, 5, 1));
+    }
+
+    public void testTurbotFish() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                if (!(row == 0 && col == 0) && !(row == 2 && col == 2)) {
+                    sudoku.setCellValueAsImpossible(row, col, 1);
+                }
+            }
+        }
+        keepInRow(sudoku, 6, 1, 2, 7);
+
+        assertFalse(solver.solveTwoStringKite(sudoku));
+        assertTrue(solver.solveTurbotFish(sudoku));
+        assertFalse(sudoku.isCellValuePossible(0, 7, 1));
+        assertTrue(sudoku.isCellValuePossible(1, 7, 1));
+    }
+
+    public void testSimpleColoringTrap() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        keepInRow(sudoku, 0, 1, 0, 4);
+        keepInCol(sudoku, 4, 1, 0, 4);
+        keepInRow(sudoku, 4, 1, 1, 4);
+
+        assertTrue(solver.solveSimpleColoring(sudoku));
+        // cells seeing (0,0) and (4,1)
+        assertFalse(sudoku.isCellValuePossible(1, 1, 1));
+        assertFalse(sudoku.isCellValuePossible(2, 1, 1));
+        assertFalse(sudoku.isCellValuePossible(3, 0, 1));
+        assertFalse(sudoku.isCellValuePossible(5, 0, 1));
+        assertTrue(sudoku.isCellValuePossible(1, 2, 1));
+        assertTrue(sudoku.isCellValuePossible(0, 0, 1));
+    }
+
+    public void testSimpleColoringWrap() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        keepInRow(sudoku, 0, 1, 0, 4);
+        keepInCol(sudoku, 4, 1, 0, 4);
+        keepInRow(sudoku, 4, 1, 1, 4);
+        keepInCol(sudoku, 1, 1, 1, 4);
+
+        assertTrue(solver.solveSimpleColoring(sudoku));
+        // (0,0), (4,4) and (1,1) share a color and (0,0) sees (1,1)
+        assertFalse(sudoku.isCellValuePossible(0, 0, 1));
+        assertFalse(sudoku.isCellValuePossible(4, 4, 1));
+        assertFalse(sudoku.isCellValuePossible(1, 1, 1));
+        assertTrue(sudoku.isCellValuePossible(0, 4, 1));
+        assertTrue(sudoku.isCellValuePossible(4, 1, 1));
+    }
+
+    public void testAlternatingInferenceChain() throws SolvingException {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        keepInRow(sudoku, 0, 1, 0, 4);
+        keepInRow(sudoku, 6, 1, 0, 5);
+
+        // skyscraper needs three links
+        solver.setMaxChainDepth(2);
+        assertFalse(solver.solveAlternatingInferenceChains(sudoku));
+
+        solver.setMaxChainDepth(3);
+        assertTrue(solver.solveAlternatingInferenceChains(sudoku));
+        assertFalse(sudoku.isCellValuePossible(1, 5, 1));
+        assertFalse(sudoku.isCellValuePossible(2, 5, 1));
+        assertFalse(sudoku.isCellValuePossible(7, 4, 1));
+        assertFalse(sudoku.isCellValuePossible(8, 4, 1));
+        assertTrue(sudoku.isCellValuePossible(3, 0, 1));
+    }
+
+    public void testForcingChains() throws SolvingException {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 0, 5, 1, 3);
+        setCandidates(sudoku, 4, 0, 2, 3);
+
+        assertTrue(solver.solveForcingChains(sudoku));
+        assertFalse(sudoku.isCellValuePossible(4, 5, 3));
+        assertTrue(sudoku.isCellValuePossible(4, 6, 3));
+    }
+
+    public void testImplicationGraph() {
+        Sudoku sudoku = new Sudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        ImplicationGraph graph = new ImplicationGraph(sudoku);
+
+        int[] links = graph.getStrongLinks(0);
+        assertEquals(1, links.length);
+        assertEquals(1, links[0]);
+        assertEquals(0, graph.getMemoHits());
+        graph.getStrongLinks(0);
+        assertEquals(1, graph.getMemoHits());
+
+        // changed state rebuilds links
+        keepInRow(sudoku, 0, 1, 0, 4);
+        links = graph.getStrongLinks(0);
+        assertEquals(2, links.length);
+        assertEquals(1, graph.getMemoHits());
+
+        long[] reached = graph.propagate(0, false, 1, ImplicationGraph.createLiteralSet());
+        assertTrue(ImplicationGraph.contains(reached, 1 * 2 + 1));
+        assertTrue(ImplicationGraph.contains(reached, (4 * 9) * 2 + 1));
+        assertFalse(ImplicationGraph.contains(reached, (4 * 9 + 1) * 2));
+    }
+
+    public void testHumanSolverOnExtreme() throws Exception {
+        String puzzle = "000000000003000710070000403002090075040307680000000000034809260061004307000000000";
+        SudokuPossibilityBasedSolver bruteForce = new SudokuPossibilityBasedSolver(new Sudoku(puzzle));
+        bruteForce.setTimeLimit(100000);
+        assertEquals(1, bruteForce.solve());
+        Sudoku sudoku = new Sudoku(puzzle);
+        sudoku.setSolution(bruteForce.getFirstSolution());
+
+        SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.VERY_HARD);
+        assertEquals(0, solver.solve());
+
+        solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EXTREME);
+        assertEquals(1, solver.solve());
+        assertTrue(solver.getChainSolves() > 0);
+        assertTrue(solver.getSudoku().isSame(sudoku.getSolution()));
+    }
+
+    public void testUniqueRectangleType1() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 0, 3, 1, 2);
+        setCandidates(sudoku, 1, 0, 1, 2);
+        setCandidates(sudoku, 1, 3, 1, 2, 5);
+
+        assertTrue(solver.solveUniqueRectangles(sudoku));
+        assertEquals(1, sudoku.getCandidateCount(1, 3));
+        assertTrue(sudoku.isCellValuePossible(1, 3, 5));
+    }
+
+    public void testUniqueRectangleType2() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 1, 0, 1, 2);
+        setCandidates(sudoku, 0, 3, 1, 2, 5);
+        setCandidates(sudoku, 1, 3, 1, 2, 5);
+
+        assertTrue(solver.solveUniqueRectangles(sudoku));
+        // cells seeing both roofs
+        assertFalse(sudoku.isCellValuePossible(2, 3, 5));
+        assertFalse(sudoku.isCellValuePossible(0, 4, 5));
+        assertFalse(sudoku.isCellValuePossible(5, 3, 5));
+        assertTrue(sudoku.isCellValuePossible(0, 3, 5));
+        assertTrue(sudoku.isCellValuePossible(3, 0, 5));
+    }
+
+    public void testUniqueRectangleType3() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 1, 0, 1, 2);
+        setCandidates(sudoku, 0, 3, 1, 2, 5);
+        setCandidates(sudoku, 1, 3, 1, 2, 6);
+        setCandidates(sudoku, 5, 3, 5, 6);
+
+        assertTrue(solver.solveUniqueRectangles(sudoku));
+        // extra values and [5][3] form a naked pair in column 3
+        assertFalse(sudoku.isCellValuePossible(3, 3, 5));
+        assertFalse(sudoku.isCellValuePossible(8, 3, 6));
+        assertTrue(sudoku.isCellValuePossible(5, 3, 5));
+        assertTrue(sudoku.isCellValuePossible(3, 3, 1));
+    }
+
+    public void testUniqueRectangleType4() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 1, 0, 1, 2);
+        setCandidates(sudoku, 0, 3, 1, 2, 5);
+        setCandidates(sudoku, 1, 3, 1, 2, 6);
+        keepInCol(sudoku, 3, 1, 0, 1);
+
+        assertTrue(solver.solveUniqueRectangles(sudoku));
+        assertFalse(sudoku.isCellValuePossible(0, 3, 2));
+        assertFalse(sudoku.isCellValuePossible(1, 3, 2));
+        assertTrue(sudoku.isCellValuePossible(0, 3, 1));
+        assertTrue(sudoku.isCellValuePossible(1, 3, 6));
+    }
+
+    public void testUniqueRectangleNotInTwoGrids() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        // four grids, no deadly pattern
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 0, 3, 1, 2);
+        setCandidates(sudoku, 3, 0, 1, 2);
+        setCandidates(sudoku, 3, 3, 1, 2, 5);
+
+        assertFalse(solver.solveUniqueRectangles(sudoku));
+    }
+
+    public void testBugPlusOne() throws SolvingException {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        // every cell holds its value in a solved grid and the next value,
+        // so every value appears twice in every unit
+        for (int row = 0; row < Sudoku.N; row++) {
+            for (int col = 0; col < Sudoku.N; col++) {
+                int value = (row * 3 + row / 3 + col) % 9 + 1;
+                int next = value % 9 + 1;
+                if (row == 4 && col == 4) {
+                    setCandidates(sudoku, row, col, value, next, (next % 9) + 1);
+                } else {
+                    setCandidates(sudoku, row, col, value, next);
+                }
+            }
+        }
+        int value = (4 * 3 + 4 / 3 + 4) % 9 + 1;
+        int extra = (value % 9 + 1) % 9 + 1;
+        assertTrue(solver.solveBugPlusOne(sudoku));
+        assertEquals(extra, sudoku.getCellValue(4, 4));
+    }
+
+    public void testAlsXz() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 4, 0, 1, 3);
+        setCandidates(sudoku, 4, 1, 2, 3);
+
+        // restricted common 1 in column 0, one of the sets holds 2
+        assertTrue(solver.solveAlsXz(sudoku));
+        assertFalse(sudoku.isCellValuePossible(0, 1, 2));
+        assertFalse(sudoku.isCellValuePossible(1, 1, 2));
+        assertFalse(sudoku.isCellValuePossible(3, 0, 2));
+        assertFalse(sudoku.isCellValuePossible(5, 0, 2));
+        assertTrue(sudoku.isCellValuePossible(3, 1, 2));
+        assertTrue(sudoku.isCellValuePossible(4, 1, 2));
+    }
+
+    public void testAlsXyWing() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 4, 4, 1, 2);
+        setCandidates(sudoku, 4, 0, 1, 3);
+        setCandidates(sudoku, 0, 4, 2, 3);
+
+        assertTrue(solver.solveAlsXyWing(sudoku));
+        assertFalse(sudoku.isCellValuePossible(0, 0, 3));
+        assertTrue(sudoku.isCellValuePossible(0, 1, 3));
+    }
+
+    public void testAlmostLockedSetCache() {
+        Sudoku sudoku = new Sudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        AlmostLockedSetCache cache = new AlmostLockedSetCache(sudoku);
+
+        List<AlmostLockedSet> sets = cache.getAlmostLockedSets();
+        assertEquals(27, cache.getEnumerations());
+        boolean found = false;
+        for (AlmostLockedSet set : sets) {
+            found |= set.getCells().length == 1 && set.getCells()[0] == 0 && set.getMask() == 3;
+        }
+        assertTrue(found);
+
+        // unchanged units are not enumerated again
+        assertSame(sets, cache.getAlmostLockedSets());
+        sudoku.setCellValueAsImpossible(8, 8, 5);
+        cache.getAlmostLockedSets();
+        assertEquals(30, cache.getEnumerations());
+    }
+
+    public void testChangeTracker() throws SolvingException {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        ChangeTracker tracker = solver.getChangeTracker(sudoku);
+
+        assertFalse(solver.solveBasic(sudoku));
+        assertEquals(0, tracker.getSkipped());
+
+        // nothing changed, every unit is skipped
+        assertFalse(solver.solveBasic(sudoku));
+        assertEquals(27, tracker.getSkipped());
+
+        // only row 4, column 4 and grid 4 are examined again
+        sudoku.setCellValueAsImpossible(4, 4, 1);
+        assertFalse(solver.solveBasic(sudoku));
+        assertEquals(27 + 24, tracker.getSkipped());
+
+        // a hidden single in a changed unit is still found
+        keepInRow(sudoku, 0, 5, 3);
+        assertTrue(solver.solveBasic(sudoku));
+        assertEquals(5, sudoku.getCellValue(0, 3));
+    }
+
+    public void testAlsScanSkipsUnchangedSets() {
+        SudokuHumanSolver solver = new SudokuHumanSolver(new Sudoku());
+        Sudoku sudoku = solver.getSudoku();
+        setCandidates(sudoku, 0, 0, 1, 2);
+        setCandidates(sudoku, 4, 0, 1, 3);
+        assertFalse(solver.solveAlsXz(sudoku));
+        assertFalse(solver.solveAlsXz(sudoku));
+
+        // new set in row 4 makes a pair with the unchanged set in grid 0
+        setCandidates(sudoku, 4, 1, 2, 3);
+        assertTrue(solver.solveAlsXz(sudoku));
+        assertFalse(sudoku.isCellValuePossible(1, 1, 2));
+    }
 }
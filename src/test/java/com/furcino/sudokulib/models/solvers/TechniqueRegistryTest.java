@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.models.solvers;
+
+import java.util.List;
+
+import com.furcino.sudokulib.TestHelper;
+import com.furcino.sudokulib.models.Sudoku;
+import com.furcino.sudokulib.models.SudokuDifficulty;
+import com.furcino.sudokulib.models.solvers.exceptions.SolvingException;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class TechniqueRegistryTest extends TestCase {
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public TechniqueRegistryTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(TechniqueRegistryTest.class);
+	}
+
+    /**
+     * Technique counting its applications, never changing the sudoku.
+     */
+    private static class CountingTechnique implements Technique {
+
+        private SudokuDifficulty difficulty;
+
+        private int cost;
+
+        private int applications = 0;
+
+        CountingTechnique(SudokuDifficulty difficulty, int cost) {
+            this.difficulty = difficulty;
+            this.cost = cost;
+        }
+
+        public String getName() {
+            return "Counting";
+        }
+
+        public SudokuDifficulty getDifficulty() {
+            return difficulty;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+
+        public int getWeight() {
+            return cost;
+        }
+
+        public TechniqueType getType() {
+            return TechniqueType.ADVANCED;
+        }
+
+        public boolean isUniquenessBased() {
+            return false;
+        }
+
+        public boolean apply(BaseSolver solver, Sudoku sudoku) throws SolvingException {
+            applications++;
+            return false;
+        }
+    }
+
+    public void testSchedule() {
+        TechniqueRegistry registry = TechniqueRegistry.createDefault();
+
+        List<Technique> easy = registry.getSchedule(SudokuDifficulty.EASY, false);
+        assertEquals(1, easy.size());
+        assertEquals(HumanTechnique.BASIC, easy.get(0));
+
+        List<Technique> hard = registry.getSchedule(SudokuDifficulty.HARD, false);
+        assertEquals(3, hard.size());
+
+        List<Technique> veryHard = registry.getSchedule(SudokuDifficulty.VERY_HARD, false);
+        assertFalse(veryHard.contains(HumanTechnique.UNIQUE_RECTANGLES));
+        assertFalse(veryHard.contains(HumanTechnique.ALTERNATING_INFERENCE_CHAINS));
+        assertTrue(registry.getSchedule(SudokuDifficulty.VERY_HARD, true).contains(HumanTechnique.UNIQUE_RECTANGLES));
+
+        List<Technique> extreme = registry.getSchedule(SudokuDifficulty.EXTREME, true);
+        assertEquals(HumanTechnique.values().length, extreme.size());
+        for (int i = 0; i < extreme.size(); i++) {
+            assertEquals(HumanTechnique.values()[i], extreme.get(i));
+        }
+    }
+
+    public void testRegisterAfterTier() {
+        TechniqueRegistry registry = TechniqueRegistry.createDefault();
+        CountingTechnique technique = new CountingTechnique(SudokuDifficulty.HARD, 1);
+        registry.register(technique);
+
+        List<Technique> hard = registry.getSchedule(SudokuDifficulty.HARD, false);
+        assertEquals(4, hard.size());
+        assertEquals(technique, hard.get(3));
+        assertEquals(HumanTechnique.X_WING_AND_SKYSCRAPER,
+                registry.getSchedule(SudokuDifficulty.VERY_HARD, false).get(4));
+
+        try {
+            registry.register(technique);
+            fail("Registered twice");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertTrue(registry.unregister(technique));
+        assertEquals(3, registry.getSchedule(SudokuDifficulty.HARD, false).size());
+    }
+
+    public void testStatsAndPluggedTechnique() throws Exception {
+        TechniqueRegistry registry = TechniqueRegistry.createDefault();
+        CountingTechnique technique = new CountingTechnique(SudokuDifficulty.EASY, 1);
+        registry.register(technique);
+
+        Sudoku sudoku = TestHelper.getEasySudokus().get(0);
+        SudokuHumanSolver solver = new SudokuHumanSolver(sudoku, SudokuDifficulty.EASY);
+        solver.setTechniqueRegistry(registry);
+        assertEquals(1, solver.solve());
+
+        // the plugged technique runs only when basic finds nothing
+        TechniqueStats basic = registry.getStats(HumanTechnique.BASIC);
+        assertEquals(solver.getBasicSolves(), basic.getHits(SudokuDifficulty.EASY));
+        assertEquals(basic.getCalls(), basic.getCalls(SudokuDifficulty.EASY));
+        assertTrue(basic.getNanos() > 0);
+        assertEquals(basic.getCalls() - basic.getHits(), technique.applications);
+        assertEquals(technique.applications, registry.getStats(technique).getCalls());
+        assertEquals(0, registry.getStats(technique).getHits());
+
+        registry.resetStats();
+        assertEquals(0, basic.getCalls());
+    }
+
+    public void testAdaptiveOrdering() {
+        TechniqueRegistry registry = TechniqueRegistry.createDefault();
+        registry.setAdaptiveOrdering(true);
+
+        // without statistics a tier is ordered by declared cost
+        List<Technique> veryHard = registry.getSchedule(SudokuDifficulty.VERY_HARD, true);
+        assertEquals(HumanTechnique.BUG_PLUS_ONE, veryHard.get(3));
+        assertEquals(HumanTechnique.ALS_XY_WING, veryHard.get(veryHard.size() - 1));
+
+        // with statistics by time per hit
+        for (Technique technique : registry.getTechniques()) {
+            for (int i = 0; i < TechniqueRegistry.MIN_CALLS; i++) {
+                boolean cheap = technique == HumanTechnique.ALS_XY_WING;
+                registry.record(technique, SudokuDifficulty.VERY_HARD, true, cheap ? 1 : 1000);
+            }
+        }
+        veryHard = registry.getSchedule(SudokuDifficulty.VERY_HARD, true);
+        assertEquals(HumanTechnique.ALS_XY_WING, veryHard.get(3));
+        // tiers keep their order
+        assertEquals(HumanTechnique.BASIC, veryHard.get(0));
+
+        // techniques that never hit for a difficulty get skipped for it
+        for (int i = 0; i < TechniqueRegistry.SKIP_CALLS; i++) {
+            registry.record(HumanTechnique.W_WING, SudokuDifficulty.EXTREME, false, 1);
+        }
+        assertFalse(registry.getSchedule(SudokuDifficulty.EXTREME, true).contains(HumanTechnique.W_WING));
+        assertTrue(registry.getSchedule(SudokuDifficulty.VERY_HARD, true).contains(HumanTechnique.W_WING));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Martin Furek
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.furcino.sudokulib.util;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PeerUtilTest extends TestCase {
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName
+	 *            name of the test case
+	 */
+	public PeerUtilTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite() {
+		return new TestSuite(PeerUtilTest.class);
+	}
+
+    public void testPeers() {
+        for (int cell = 0; cell < PeerUtil.CELLS; cell++) {
+            assertEquals(20, PeerUtil.getPeers(cell).length);
+            assertFalse(PeerUtil.sees(cell, cell));
+            for (int peer : PeerUtil.getPeers(cell)) {
+                assertTrue(PeerUtil.sees(peer, cell));
+            }
+        }
+        // row, column and grid
+        assertTrue(PeerUtil.sees(0, 8));
+        assertTrue(PeerUtil.sees(0, 72));
+        assertTrue(PeerUtil.sees(0, 20));
+        assertFalse(PeerUtil.sees(0, 30));
+    }
+
+    public void testUnits() {
+        assertEquals(0, PeerUtil.getCellUnits(0)[0]);
+        assertEquals(9, PeerUtil.getCellUnits(0)[1]);
+        assertEquals(18, PeerUtil.getCellUnits(0)[2]);
+        assertEquals(26, PeerUtil.getCellUnits(80)[2]);
+        int[] grid = PeerUtil.getUnitCells(22);
+        assertEquals(30, grid[0]);
+        assertEquals(50, grid[8]);
+
+        for (int unit = 0; unit < PeerUtil.UNITS; unit++) {
+            int[] cells = PeerUtil.getUnitCells(unit);
+            for (int i = 0; i < cells.length; i++) {
+                assertEquals(i, PeerUtil.getUnitPosition(unit, cells[i]));
+            }
+        }
+    }
+
+    public void testCommonPeers() {
+        // (0,5) and (4,0) only share (0,0) and (4,5)
+        int[] common = PeerUtil.getCommonPeers(5, 36);
+        assertEquals(2, common.length);
+        assertEquals(0, common[0]);
+        assertEquals(41, common[1]);
+        // cells in the same row share the rest of the row
+        assertEquals(7, PeerUtil.getCommonPeers(0, 8).length);
+    }
+}